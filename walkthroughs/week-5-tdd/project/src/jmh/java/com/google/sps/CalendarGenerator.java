@@ -0,0 +1,97 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Builds synthetic calendars for benchmarks. Calendars are random but repeatable: two generators
+ * with the same settings and seed produce the same events and requests.
+ */
+public final class CalendarGenerator {
+  private final Random random;
+  private final int populationSize;
+
+  /**
+   * Creates a generator for a company of {@code populationSize} people.
+   *
+   * @param seed The seed for the random numbers, so that runs can be compared.
+   */
+  public CalendarGenerator(int populationSize, long seed) {
+    if (populationSize <= 0) {
+      throw new IllegalArgumentException("populationSize must be positive");
+    }
+    this.populationSize = populationSize;
+    this.random = new Random(seed);
+  }
+
+  /** Returns the name of person number {@code index}. */
+  public static String person(int index) {
+    return "Person " + index;
+  }
+
+  /**
+   * Creates {@code eventCount} events during a single day.
+   *
+   * @param attendeesPerEvent How many people attend each event.
+   * @param meanEventMinutes The average length of an event. Longer events overlap more often.
+   */
+  public List<Event> events(int eventCount, int attendeesPerEvent, int meanEventMinutes) {
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration = 1 + random.nextInt(Math.min(2 * meanEventMinutes, TimeRange.END_OF_DAY));
+      int start = random.nextInt(TimeRange.WHOLE_DAY.duration() - duration + 1);
+      events.add(
+          new Event(
+              "Event " + i,
+              TimeRange.fromStartDuration(start, duration),
+              people(attendeesPerEvent, new HashSet<>())));
+    }
+    return events;
+  }
+
+  /**
+   * Creates a request for a meeting of {@code duration} minutes with {@code mandatoryCount}
+   * mandatory and {@code optionalCount} optional attendees, all different people.
+   */
+  public MeetingRequest request(int mandatoryCount, int optionalCount, int duration) {
+    Set<String> mandatoryAttendees = people(mandatoryCount, new HashSet<>());
+    MeetingRequest request = new MeetingRequest(mandatoryAttendees, duration);
+    for (String optionalAttendee : people(optionalCount, mandatoryAttendees)) {
+      request.addOptionalAttendee(optionalAttendee);
+    }
+    return request;
+  }
+
+  /** Picks {@code count} random people that are not in {@code excluded}. */
+  private Set<String> people(int count, Set<String> excluded) {
+    if (count + excluded.size() > populationSize) {
+      throw new IllegalArgumentException("not enough people to pick " + count + " of them");
+    }
+
+    Set<String> people = new HashSet<>();
+    while (people.size() < count) {
+      String person = person(random.nextInt(populationSize));
+      if (!excluded.contains(person)) {
+        people.add(person);
+      }
+    }
+    return people;
+  }
+}
@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the throughput of the different ways {@code FindMeetingQuery} can answer a request, on
+ * synthetic single-day calendars. Run with the GC profiler (the default for {@code mvn -P
+ * benchmark exec:exec}) to also see the bytes allocated per query.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FindMeetingQueryBenchmark {
+  private static final int POPULATION_SIZE = 1000;
+  private static final int MANDATORY_ATTENDEES = 3;
+  private static final int MEETING_DURATION_MINUTES = 30;
+
+  @Param({"1000", "10000"})
+  public int eventCount;
+
+  @Param({"2", "10"})
+  public int attendeesPerEvent;
+
+  // The average event length. Longer events make the calendar denser and overlaps more common.
+  @Param({"30", "120"})
+  public int meanEventMinutes;
+
+  @Param({"0", "10", "50"})
+  public int optionalAttendees;
+
+  private List<Event> events;
+  private AttendeeIndex index;
+  private MeetingRequest request;
+  private FindMeetingQuery query;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator = new CalendarGenerator(POPULATION_SIZE, /* seed= */ 42);
+    events = generator.events(eventCount, attendeesPerEvent, meanEventMinutes);
+    index = new AttendeeIndex(events);
+    request = generator.request(MANDATORY_ATTENDEES, optionalAttendees, MEETING_DURATION_MINUTES);
+    query = new FindMeetingQuery();
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryEvents() {
+    return query.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryWithBitmaps() {
+    return query.queryWithBitmaps(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryMaximizingOptionalAttendees() {
+    return query.queryMaximizingOptionalAttendees(index, request);
+  }
+
+  @Benchmark
+  public AttendeeIndex buildIndex() {
+    return new AttendeeIndex(events);
+  }
+}
@@ -0,0 +1,45 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+
+/** A source of the times that people are busy, which {@code FindMeetingQuery} can search. */
+@FunctionalInterface
+public interface AttendeeCalendar {
+  /**
+   * Returns the times that any of {@code attendees} is busy, sorted by start time with no two time
+   * ranges overlapping. People the calendar doesn't know about are never busy.
+   */
+  List<TimeRange> getBusyTimeRanges(Collection<String> attendees);
+
+  /**
+   * Returns a number that changes whenever anyone's busy times change, so that results computed
+   * from this calendar can be cached until it changes. Calendars that never change return 0.
+   */
+  default long getVersion() {
+    return 0;
+  }
+
+  /**
+   * Returns a calendar with the busy times of this one as they are now, which doesn't change even
+   * if this one does, so that a query that looks up busy times more than once sees them all from
+   * the same version. Calendars that never change return themselves.
+   */
+  default AttendeeCalendar getSnapshot() {
+    return this;
+  }
+}
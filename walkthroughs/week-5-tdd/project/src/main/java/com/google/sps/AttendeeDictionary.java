@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives every attendee name a small integer ID, numbered from zero in the order the names are first
+ * seen. Per-attendee data can then be kept in arrays indexed by ID instead of in maps keyed by
+ * name, and each name is only hashed once per lookup rather than once per event. Looking up IDs and
+ * names is safe from any thread; adding names is synchronized.
+ */
+public final class AttendeeDictionary {
+  /** The ID returned by {@link #find(String)} for names that aren't in the dictionary. */
+  public static final int UNKNOWN = -1;
+
+  private final Map<String, Integer> idsByName = new ConcurrentHashMap<>();
+
+  // The names by ID. Only written while holding the lock, and republished whenever it grows so
+  // that readers never see a half-copied array.
+  private volatile String[] names = new String[16];
+  private int size = 0;
+
+  /** Returns the ID of {@code name}, adding it to the dictionary if it isn't there yet. */
+  public int idOf(String name) {
+    Integer id = idsByName.get(name);
+    if (id != null) {
+      return id;
+    }
+
+    synchronized (this) {
+      id = idsByName.get(name);
+      if (id != null) {
+        return id;
+      }
+
+      String[] grown = names;
+      if (size == grown.length) {
+        grown = Arrays.copyOf(grown, grown.length * 2);
+      }
+      grown[size] = name;
+      names = grown;
+      idsByName.put(name, size);
+      return size++;
+    }
+  }
+
+  /** Returns the ID of {@code name}, or {@link #UNKNOWN} if it isn't in the dictionary. */
+  public int find(String name) {
+    return idsByName.getOrDefault(name, UNKNOWN);
+  }
+
+  /** Returns the IDs of the given names that are in the dictionary, skipping unknown ones. */
+  public int[] findAll(Collection<String> names) {
+    return names.stream().mapToInt(this::find).filter((id) -> id != UNKNOWN).distinct().toArray();
+  }
+
+  /** Returns the name with ID {@code id}. */
+  public String nameOf(int id) {
+    if (id < 0 || id >= size()) {
+      throw new IllegalArgumentException("unknown attendee ID " + id);
+    }
+    return names[id];
+  }
+
+  /** Returns the number of names in the dictionary, which is also one more than the largest ID. */
+  public int size() {
+    return idsByName.size();
+  }
+
+  /** Returns a read-only list of every name in the dictionary, in order of ID. */
+  public List<String> getNames() {
+    // Reads the size first: names are published before they are counted, so the array is always
+    // at least this long.
+    int count = size();
+    return Collections.unmodifiableList(Arrays.asList(names).subList(0, count));
+  }
+}
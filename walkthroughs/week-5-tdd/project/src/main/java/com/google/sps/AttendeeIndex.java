@@ -0,0 +1,272 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An inverted index from each attendee to the times they are busy. The index is built once from a
+ * collection of events and can then answer busy time lookups for any group of attendees without
+ * looking at the events of people outside the group. Indexes are read-only once built.
+ *
+ * <p>Attendees are numbered with an {@code AttendeeDictionary}, so everything the index keeps per
+ * attendee lives in arrays indexed by attendee ID.
+ */
+public final class AttendeeIndex implements AttendeeCalendar {
+  private final AttendeeDictionary dictionary;
+
+  // For each attendee ID, the merged time ranges of all the events they attend, sorted by start
+  // time.
+  private final List<List<TimeRange>> busyTimeRangesById;
+
+  // For each attendee ID, a bitmap of the minutes they are busy. Built lazily on first lookup since
+  // not every caller queries with bitmaps. These bitmaps are never handed out to callers.
+  private final AtomicReferenceArray<MinuteBitmap> busyBitmapsById;
+
+  /**
+   * Builds an index over a collection of events.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public AttendeeIndex(Collection<Event> events) {
+    this(buildFrom(events));
+  }
+
+  private static Builder buildFrom(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Builder builder = new Builder();
+    events.forEach(builder::add);
+    return builder;
+  }
+
+  private AttendeeIndex(Builder builder) {
+    dictionary = builder.dictionary;
+
+    // Merges each attendee's events once up front so that lookups only need to combine the
+    // already merged lists of the requested attendees.
+    busyTimeRangesById = new ArrayList<>(builder.timeRangesById.size());
+    for (List<TimeRange> timeRanges : builder.timeRangesById) {
+      busyTimeRangesById.add(Collections.unmodifiableList(TimeRanges.merge(timeRanges)));
+    }
+    busyBitmapsById = new AtomicReferenceArray<>(busyTimeRangesById.size());
+  }
+
+  private AttendeeIndex(
+      AttendeeDictionary dictionary,
+      List<List<TimeRange>> busyTimeRangesById,
+      AtomicReferenceArray<MinuteBitmap> busyBitmapsById) {
+    this.dictionary = dictionary;
+    this.busyTimeRangesById = busyTimeRangesById;
+    this.busyBitmapsById = busyBitmapsById;
+  }
+
+  /**
+   * Returns a new index where the attendees in {@code busyTimeRangesByAttendee} are busy at the
+   * given times instead, and everyone else is busy at the same times as in this index. The new
+   * index shares the dictionary and everyone else's busy times and bitmaps with this one, so making
+   * it only costs copying one reference per attendee. This index doesn't change.
+   *
+   * @param busyTimeRangesByAttendee merged busy times, sorted by start time, that must not change
+   *     afterwards
+   */
+  AttendeeIndex withBusyTimeRanges(Map<String, List<TimeRange>> busyTimeRangesByAttendee) {
+    // The dictionary only ever grows, and indexes made before a name was added treat its ID as
+    // unknown, so it is safe to add names to it here.
+    for (String attendee : busyTimeRangesByAttendee.keySet()) {
+      dictionary.idOf(attendee);
+    }
+
+    int size = Math.max(busyTimeRangesById.size(), dictionary.size());
+    List<List<TimeRange>> newBusyTimeRangesById = new ArrayList<>(size);
+    newBusyTimeRangesById.addAll(busyTimeRangesById);
+    while (newBusyTimeRangesById.size() < size) {
+      newBusyTimeRangesById.add(Collections.emptyList());
+    }
+
+    AtomicReferenceArray<MinuteBitmap> newBusyBitmapsById = new AtomicReferenceArray<>(size);
+    for (int id = 0; id < busyBitmapsById.length(); id++) {
+      newBusyBitmapsById.set(id, busyBitmapsById.get(id));
+    }
+
+    for (Map.Entry<String, List<TimeRange>> entry : busyTimeRangesByAttendee.entrySet()) {
+      int id = dictionary.find(entry.getKey());
+      newBusyTimeRangesById.set(id, Collections.unmodifiableList(entry.getValue()));
+      newBusyBitmapsById.set(id, null);
+    }
+    return new AttendeeIndex(dictionary, newBusyTimeRangesById, newBusyBitmapsById);
+  }
+
+  /** Returns the dictionary that numbers the attendees of this index. */
+  public AttendeeDictionary getDictionary() {
+    return dictionary;
+  }
+
+  /**
+   * Returns a read-only list of the times that {@code attendee} is busy, sorted by start time with
+   * no two time ranges overlapping. Returns an empty list for people the index doesn't know about.
+   */
+  public List<TimeRange> getBusyTimeRanges(String attendee) {
+    int id = dictionary.find(attendee);
+    return isIndexed(id) ? busyTimeRangesById.get(id) : Collections.emptyList();
+  }
+
+  /**
+   * Returns whether {@code attendee} has no event that overlaps {@code range}. Binary searches the
+   * attendee's merged busy times, so it takes {@code O(log n)} time in the number of them.
+   */
+  public boolean isFree(String attendee, TimeRange range) {
+    List<TimeRange> busyTimeRanges = getBusyTimeRanges(attendee);
+
+    // Finds the first busy time that starts at or after the range does. Since busy times don't
+    // overlap, only it and the one before it can overlap the range.
+    int low = 0;
+    int high = busyTimeRanges.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (busyTimeRanges.get(middle).start() < range.start()) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    if (low > 0 && busyTimeRanges.get(low - 1).overlaps(range)) {
+      return false;
+    }
+    return low == busyTimeRanges.size() || !busyTimeRanges.get(low).overlaps(range);
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+    List<TimeRange> timeRanges = new ArrayList<>();
+    for (int id : dictionary.findAll(attendees)) {
+      if (isIndexed(id)) {
+        timeRanges.addAll(busyTimeRangesById.get(id));
+      }
+    }
+    return TimeRanges.merge(timeRanges);
+  }
+
+  /**
+   * Returns a new bitmap with every minute set that any of {@code attendees} is busy. The caller
+   * owns the returned bitmap and may change it.
+   */
+  public MinuteBitmap getBusyBitmap(Collection<String> attendees) {
+    MinuteBitmap bitmap = new MinuteBitmap();
+    for (int id : dictionary.findAll(attendees)) {
+      if (!isIndexed(id)) {
+        continue;
+      }
+      MinuteBitmap busyBitmap = busyBitmapsById.get(id);
+      if (busyBitmap == null) {
+        // Two threads may both build the same bitmap, but they build identical ones, so it
+        // doesn't matter whose is kept.
+        busyBitmap = MinuteBitmap.fromTimeRanges(busyTimeRangesById.get(id));
+        busyBitmapsById.set(id, busyBitmap);
+      }
+      bitmap.or(busyBitmap);
+    }
+    return bitmap;
+  }
+
+  /**
+   * Returns a read-only list of every attendee that has at least one event in the index, in order
+   * of ID. Attendees whose events have all been replaced by {@link #withBusyTimeRanges} keep their
+   * ID in the dictionary but are left out, as are attendees whose events all have no duration.
+   */
+  public Collection<String> getAttendees() {
+    List<String> attendees = new ArrayList<>();
+    for (int id = 0; id < busyTimeRangesById.size(); id++) {
+      if (!busyTimeRangesById.get(id).isEmpty()) {
+        attendees.add(dictionary.nameOf(id));
+      }
+    }
+    return Collections.unmodifiableList(attendees);
+  }
+
+  /**
+   * Returns whether this index has busy times for attendee {@code id}. Names added to a shared
+   * dictionary after this index was made have IDs past the end of its lists.
+   */
+  private boolean isIndexed(int id) {
+    return id != AttendeeDictionary.UNKNOWN && id < busyTimeRangesById.size();
+  }
+
+  /**
+   * Builds an index one event at a time, for callers that read events from a stream and don't want
+   * to keep them all in memory. A builder can only build one index.
+   */
+  public static final class Builder {
+    private final AttendeeDictionary dictionary = new AttendeeDictionary();
+    private final List<List<TimeRange>> timeRangesById = new ArrayList<>();
+    private Set<String> retainedAttendees = null;
+    private boolean isBuilt = false;
+
+    /**
+     * Only keeps the busy times of {@code attendees} and ignores everyone else, so that an index
+     * built for one query only holds what that query needs. Must be called before any event is
+     * added.
+     */
+    public Builder retainOnly(Collection<String> attendees) {
+      if (!timeRangesById.isEmpty()) {
+        throw new IllegalStateException("retainOnly must be called before adding events");
+      }
+      retainedAttendees = new HashSet<>(attendees);
+      return this;
+    }
+
+    /** Adds an event to the index. */
+    public Builder add(Event event) {
+      return add(event.getWhen(), event.getAttendees());
+    }
+
+    /** Adds an event that takes place at {@code when} and is attended by {@code attendees}. */
+    public Builder add(TimeRange when, Collection<String> attendees) {
+      if (isBuilt) {
+        throw new IllegalStateException("the index has already been built");
+      }
+
+      for (String attendee : attendees) {
+        if (retainedAttendees != null && !retainedAttendees.contains(attendee)) {
+          continue;
+        }
+        int id = dictionary.idOf(attendee);
+        if (id == timeRangesById.size()) {
+          timeRangesById.add(new ArrayList<>());
+        }
+        timeRangesById.get(id).add(when);
+      }
+      return this;
+    }
+
+    /** Builds the index from the events added so far. */
+    public AttendeeIndex build() {
+      if (isBuilt) {
+        throw new IllegalStateException("the index has already been built");
+      }
+      isBuilt = true;
+      return new AttendeeIndex(this);
+    }
+  }
+}
@@ -0,0 +1,152 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Answers meeting requests against one calendar like {@code FindMeetingQuery}, but remembers the
+ * answers to recent requests. Two requests count as the same when they have the same mandatory
+ * attendees, optional attendees, availability windows and duration, in any order. Answers are only
+ * reused while the calendar's version stays the same, and the whole cache is dropped once it
+ * changes. Safe for use by multiple threads at once if the calendar is.
+ */
+public final class CachingMeetingQuery {
+  private final AttendeeCalendar calendar;
+  private final FindMeetingQuery query;
+  private final Cache<RequestKey, Collection<TimeRange>> answers;
+
+  // The calendar version that the cached answers were computed with.
+  private final AtomicLong cachedVersion;
+
+  /**
+   * Creates a cache for requests against {@code calendar}.
+   *
+   * @param maximumSize The most answers to keep. The least recently used ones are dropped first.
+   */
+  public CachingMeetingQuery(AttendeeCalendar calendar, long maximumSize) {
+    this(calendar, maximumSize, new FindMeetingQuery());
+  }
+
+  /**
+   * Creates a cache for requests against {@code calendar} that answers the requests it doesn't have
+   * cached yet with {@code query}, for example one that records metrics.
+   *
+   * @param maximumSize The most answers to keep. The least recently used ones are dropped first.
+   */
+  public CachingMeetingQuery(AttendeeCalendar calendar, long maximumSize, FindMeetingQuery query) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (query == null) {
+      throw new IllegalArgumentException("query cannot be null");
+    }
+
+    this.calendar = calendar;
+    this.query = query;
+    this.answers = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats().build();
+    this.cachedVersion = new AtomicLong(calendar.getVersion());
+  }
+
+  /**
+   * Finds the possible meeting times for {@code request}, as {@link
+   * FindMeetingQuery#query(AttendeeCalendar, MeetingRequest)} would. The returned collection is
+   * read-only since it may be shared with other callers.
+   */
+  public Collection<TimeRange> query(MeetingRequest request) {
+    // Answers from one snapshot so that the answer really belongs to the version it is cached
+    // under.
+    AttendeeCalendar snapshot = calendar.getSnapshot();
+    long version = snapshot.getVersion();
+    long previousVersion = cachedVersion.getAndSet(version);
+    if (previousVersion != version) {
+      // Nothing cached for the old version can be hit again, so free up the space right away.
+      answers.invalidateAll();
+    }
+
+    RequestKey key = new RequestKey(request, version);
+    Collection<TimeRange> answer = answers.getIfPresent(key);
+    if (answer == null) {
+      answer = ImmutableList.copyOf(query.query(snapshot, request));
+      answers.put(key, answer);
+    } else {
+      // Still a query that was answered, even though the work was done by an earlier one.
+      query.getMetrics().add(SchedulerMetrics.Counter.QUERIES, 1);
+    }
+    return answer;
+  }
+
+  /** Drops every cached answer. */
+  public void invalidateAll() {
+    answers.invalidateAll();
+  }
+
+  /** Returns how often cached answers were and weren't found, among other statistics. */
+  public CacheStats getStats() {
+    return answers.stats();
+  }
+
+  /** The parts of a request that its answer depends on, along with the calendar version. */
+  private static final class RequestKey {
+    private final ImmutableSet<String> attendees;
+    private final ImmutableSet<String> optionalAttendees;
+    private final ImmutableSet<TimeRange> availability;
+    private final ImmutableMap<String, ImmutableSet<TimeRange>> attendeeAvailability;
+    private final long duration;
+    private final long version;
+
+    RequestKey(MeetingRequest request, long version) {
+      this.attendees = ImmutableSet.copyOf(request.getAttendees());
+      this.optionalAttendees = ImmutableSet.copyOf(request.getOptionalAttendees());
+      this.availability = ImmutableSet.copyOf(request.getAvailability());
+      this.attendeeAvailability =
+          ImmutableMap.copyOf(
+              Maps.transformValues(request.getAttendeeAvailability(), ImmutableSet::copyOf));
+      this.duration = request.getDuration();
+      this.version = version;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof RequestKey)) {
+        return false;
+      }
+      RequestKey that = (RequestKey) other;
+      // Sets are equal when they hold the same elements, whatever order they were added in.
+      return duration == that.duration
+          && version == that.version
+          && attendees.equals(that.attendees)
+          && optionalAttendees.equals(that.optionalAttendees)
+          && availability.equals(that.availability)
+          && attendeeAvailability.equals(that.attendeeAvailability);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(
+          attendees, optionalAttendees, availability, attendeeAvailability, duration, version);
+    }
+  }
+}
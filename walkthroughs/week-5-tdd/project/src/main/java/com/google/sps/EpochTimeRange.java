@@ -0,0 +1,115 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * Class representing a span of time that isn't tied to a single day. Times are counted in minutes
+ * since an epoch chosen by the caller, with day {@code d} starting at minute {@code d *
+ * MINUTES_PER_DAY}. Ranges include their start and exclude their end.
+ */
+public final class EpochTimeRange {
+  public static final long MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  /** A comparator for sorting ranges by their start time in ascending order. */
+  public static final Comparator<EpochTimeRange> ORDER_BY_START =
+      new Comparator<EpochTimeRange>() {
+        @Override
+        public int compare(EpochTimeRange a, EpochTimeRange b) {
+          return Long.compare(a.start, b.start);
+        }
+      };
+
+  private final long start;
+  private final long duration;
+
+  private EpochTimeRange(long start, long duration) {
+    this.start = start;
+    this.duration = duration;
+  }
+
+  /** Returns the start of the range in minutes since the epoch. */
+  public long start() {
+    return start;
+  }
+
+  /** Returns the number of minutes between the start and end. */
+  public long duration() {
+    return duration;
+  }
+
+  /** Returns the end of the range. This ending value is the closing exclusive bound. */
+  public long end() {
+    return start + duration;
+  }
+
+  /**
+   * Checks if two ranges overlap. This means that at least some part of one range falls within the
+   * bounds of another range.
+   */
+  public boolean overlaps(EpochTimeRange other) {
+    return this.contains(other.start) || other.contains(this.start);
+  }
+
+  /** Checks if {@code point} falls within this range. */
+  public boolean contains(long point) {
+    return duration > 0 && point >= start && point < start + duration;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof EpochTimeRange
+        && start == ((EpochTimeRange) other).start
+        && duration == ((EpochTimeRange) other).duration;
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(start) ^ Long.hashCode(duration);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Range: [%d, %d)", start, start + duration);
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} from {@code start} (inclusive) to {@code end} (exclusive).
+   */
+  public static EpochTimeRange fromStartEnd(long start, long end) {
+    return new EpochTimeRange(start, end - start);
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} starting at {@code start} with a duration equal to {@code
+   * duration}.
+   */
+  public static EpochTimeRange fromStartDuration(long start, long duration) {
+    return new EpochTimeRange(start, duration);
+  }
+
+  /** Creates an {@code EpochTimeRange} for a single-day {@code TimeRange} on day {@code day}. */
+  public static EpochTimeRange onDay(long day, TimeRange timeRange) {
+    return new EpochTimeRange(day * MINUTES_PER_DAY + timeRange.start(), timeRange.duration());
+  }
+
+  /**
+   * Creates an {@code EpochTimeRange} covering {@code dayCount} whole days from day {@code day}.
+   */
+  public static EpochTimeRange ofDays(long day, long dayCount) {
+    return new EpochTimeRange(day * MINUTES_PER_DAY, dayCount * MINUTES_PER_DAY);
+  }
+}
@@ -14,9 +14,8 @@
 
 package com.google.sps;
 
+import com.google.common.collect.ImmutableSet;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashSet;
 import java.util.Set;
 
 /**
@@ -24,9 +23,38 @@ import java.util.Set;
  * busy. Events are considered read-only.
  */
 public final class Event {
+  /**
+   * How firmly an event blocks its attendees' time. Most queries treat every event as busy; {@link
+   * FindMeetingQuery#queryWithConflictCosts} lets meetings override the softer ones at a cost.
+   */
+  public enum BusyType {
+    /** A firm commitment. Mandatory attendees can't be asked to skip it. */
+    BUSY(10),
+    /** An event the attendee hasn't confirmed yet. */
+    TENTATIVE(1),
+    /** Time the attendee has set aside to work undisturbed. */
+    FOCUS_TIME(3);
+
+    private final int conflictCost;
+
+    BusyType(int conflictCost) {
+      this.conflictCost = conflictCost;
+    }
+
+    /**
+     * Returns the cost of holding a meeting over an event of this type, for each attendee of the
+     * meeting that has to skip the event.
+     */
+    public int getConflictCost() {
+      return conflictCost;
+    }
+  }
+
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  // An immutable set is array-backed, so it takes much less memory per event than a hash set.
+  private final Set<String> attendees;
+  private final BusyType busyType;
 
   /**
    * Creates a new event.
@@ -36,6 +64,18 @@ public final class Event {
    * @param attendees The collection of people attending the event. Must be non-null.
    */
   public Event(String title, TimeRange when, Collection<String> attendees) {
+    this(title, when, attendees, BusyType.BUSY);
+  }
+
+  /**
+   * Creates a new event that blocks its attendees' time as firmly as {@code busyType} says.
+   *
+   * @param title The human-readable name for the event. Must be non-null.
+   * @param when The time when the event takes place. Must be non-null.
+   * @param attendees The collection of people attending the event. Must be non-null.
+   * @param busyType How firmly the event blocks its attendees' time. Must be non-null.
+   */
+  public Event(String title, TimeRange when, Collection<String> attendees, BusyType busyType) {
     if (title == null) {
       throw new IllegalArgumentException("title cannot be null");
     }
@@ -48,9 +88,14 @@ public final class Event {
       throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
     }
 
+    if (busyType == null) {
+      throw new IllegalArgumentException("busyType cannot be null");
+    }
+
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendees = ImmutableSet.copyOf(attendees);
+    this.busyType = busyType;
   }
 
   /**
@@ -71,9 +116,13 @@ public final class Event {
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // The attendees are stored as an immutable set, so the caller can't change our internal data.
+    return attendees;
+  }
+
+  /** Returns how firmly this event blocks its attendees' time. */
+  public BusyType getBusyType() {
+    return busyType;
   }
 
   @Override
@@ -91,6 +140,9 @@ public final class Event {
   private static boolean equals(Event a, Event b) {
     // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
     // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    return a.title.equals(b.title)
+        && a.when.equals(b.when)
+        && a.attendees.equals(b.attendees)
+        && a.busyType == b.busyType;
   }
 }
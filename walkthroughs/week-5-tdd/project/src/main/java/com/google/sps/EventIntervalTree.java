@@ -0,0 +1,177 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A static interval tree over a collection of events that finds every event overlapping a time
+ * range without looking at the rest. The events are sorted by start time and the tree is implicit
+ * in that array: the root of any run of events is the one in the middle, and each root remembers
+ * how far the events in its run reach so that whole runs ending too early can be skipped. Every run
+ * the search enters either holds an overlapping event or lies on the path to the first event that
+ * starts too late, so finding the {@code k} events that overlap a range takes {@code O((k + 1) log
+ * n)} time. The only exception is an empty range, for which empty events at the same time are
+ * walked without being found. Checking whether a range is free doesn't use the tree: it takes a
+ * binary search for the events that start early enough and a lookup of how far they reach, which is
+ * {@code O(log n)} time. Trees are read-only once built and safe for use by multiple threads at
+ * once.
+ */
+public final class EventIntervalTree {
+  private final List<Event> eventsByStart;
+  private final int[] starts;
+
+  // For the root of each run of events, the furthest reach of any event in the run. An event
+  // reaches to its end, or to the minute after its start if it has no duration, since it still
+  // overlaps ranges that contain its start.
+  private final int[] maxReaches;
+
+  // For each count i, the latest end of any event with a duration among the first i events, and
+  // the furthest reach of any event without one.
+  private final int[] maxEndsBefore;
+  private final int[] maxEmptyReachesBefore;
+
+  /**
+   * Builds a tree over a collection of events.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public EventIntervalTree(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    List<Event> sortedEvents = new ArrayList<>(events);
+    sortedEvents.sort((a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    eventsByStart = Collections.unmodifiableList(sortedEvents);
+
+    int size = sortedEvents.size();
+    starts = new int[size];
+    int[] reaches = new int[size];
+    maxEndsBefore = new int[size + 1];
+    maxEmptyReachesBefore = new int[size + 1];
+    maxEndsBefore[0] = Integer.MIN_VALUE;
+    maxEmptyReachesBefore[0] = Integer.MIN_VALUE;
+    for (int i = 0; i < size; i++) {
+      TimeRange when = sortedEvents.get(i).getWhen();
+      starts[i] = when.start();
+      maxEndsBefore[i + 1] = maxEndsBefore[i];
+      maxEmptyReachesBefore[i + 1] = maxEmptyReachesBefore[i];
+      if (when.duration() > 0) {
+        reaches[i] = when.end();
+        maxEndsBefore[i + 1] = Math.max(maxEndsBefore[i + 1], reaches[i]);
+      } else {
+        reaches[i] = when.start() + 1;
+        maxEmptyReachesBefore[i + 1] = Math.max(maxEmptyReachesBefore[i + 1], reaches[i]);
+      }
+    }
+    maxReaches = new int[size];
+    buildMaxReaches(reaches, 0, size);
+  }
+
+  /**
+   * Fills in {@code maxReaches} for the run of events from {@code low} to {@code high} exclusive.
+   */
+  private int buildMaxReaches(int[] reaches, int low, int high) {
+    if (low >= high) {
+      return Integer.MIN_VALUE;
+    }
+    int middle = (low + high) >>> 1;
+    int maxReach =
+        Math.max(
+            reaches[middle],
+            Math.max(
+                buildMaxReaches(reaches, low, middle), buildMaxReaches(reaches, middle + 1, high)));
+    maxReaches[middle] = maxReach;
+    return maxReach;
+  }
+
+  /** Returns the number of events in the tree. */
+  public int size() {
+    return starts.length;
+  }
+
+  /**
+   * Returns every event that overlaps {@code range}, in the sense of {@link TimeRange#overlaps},
+   * sorted by start time.
+   */
+  public List<Event> getOverlapping(TimeRange range) {
+    List<Event> overlapping = new ArrayList<>();
+    collectOverlapping(range, startLimit(range), 0, starts.length, overlapping);
+    return overlapping;
+  }
+
+  /** Returns whether any event overlaps {@code range}. */
+  public boolean hasOverlapping(TimeRange range) {
+    // Of the events that start early enough, an event with a duration overlaps the range if it
+    // ends after the range starts. An event without one overlaps a range with a duration if it
+    // starts at or after the range does, but never overlaps an empty range.
+    int count = countStartingBefore(startLimit(range));
+    int maxReach = maxEndsBefore[count];
+    if (range.duration() > 0) {
+      maxReach = Math.max(maxReach, maxEmptyReachesBefore[count]);
+    }
+    return maxReach > range.start();
+  }
+
+  /**
+   * Returns the start time that events overlapping {@code range} must start before. An empty range
+   * can only overlap events that contain its start, so those events start no later than it.
+   */
+  private static int startLimit(TimeRange range) {
+    return range.duration() > 0 ? range.end() : range.start() + 1;
+  }
+
+  /** Returns the number of events that start before {@code limit}. */
+  private int countStartingBefore(int limit) {
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] < limit) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  private void collectOverlapping(
+      TimeRange range, int startLimit, int low, int high, List<Event> overlapping) {
+    if (low >= high) {
+      return;
+    }
+    int middle = (low + high) >>> 1;
+    if (maxReaches[middle] <= range.start()) {
+      // Every event in the run is over by the time the range starts.
+      return;
+    }
+
+    collectOverlapping(range, startLimit, low, middle, overlapping);
+    if (starts[middle] >= startLimit) {
+      // Every event after this one starts at least as late, so none of them overlap.
+      return;
+    }
+    Event event = eventsByStart.get(middle);
+    if (event.getWhen().overlaps(range)) {
+      overlapping.add(event);
+    }
+    collectOverlapping(range, startLimit, middle + 1, high, overlapping);
+  }
+}
@@ -0,0 +1,223 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A mutable collection of events that keeps every attendee's merged busy times up to date as events
+ * are added and removed. Adding or removing an event only touches the busy times of that event's
+ * attendees around that event, so queries can read the merged busy times directly instead of
+ * merging on every query. Not safe for use by multiple threads at once.
+ */
+public final class EventStore implements AttendeeCalendar {
+  // How many copies of each event are stored, so that removing an event that was never added
+  // can be detected.
+  private final Map<Event, Integer> eventCounts = new HashMap<>();
+  private final Map<String, BusyTimeline> timelinesByAttendee = new HashMap<>();
+
+  // The number of events, counting every copy of repeated events.
+  private int size = 0;
+
+  // Counts every change to the store.
+  private long version = 0;
+
+  /** Creates an empty store. */
+  public EventStore() {}
+
+  /** Creates a store holding {@code events}. */
+  public EventStore(Collection<Event> events) {
+    events.forEach(this::add);
+  }
+
+  /** Adds an event to the store. The same event may be added more than once. */
+  public void add(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    eventCounts.merge(event, 1, Integer::sum);
+    size++;
+    version++;
+    for (String attendee : event.getAttendees()) {
+      timelinesByAttendee
+          .computeIfAbsent(attendee, (key) -> new BusyTimeline())
+          .add(event.getWhen());
+    }
+  }
+
+  /**
+   * Removes one copy of an event from the store.
+   *
+   * @return whether the event was in the store
+   */
+  public boolean remove(Event event) {
+    Integer count = eventCounts.get(event);
+    if (count == null) {
+      return false;
+    }
+
+    if (count == 1) {
+      eventCounts.remove(event);
+    } else {
+      eventCounts.put(event, count - 1);
+    }
+    size--;
+    version++;
+
+    for (String attendee : event.getAttendees()) {
+      BusyTimeline timeline = timelinesByAttendee.get(attendee);
+      if (timeline == null) {
+        continue;
+      }
+      timeline.remove(event.getWhen());
+      if (timeline.isEmpty()) {
+        timelinesByAttendee.remove(attendee);
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public long getVersion() {
+    return version;
+  }
+
+  /** Returns the number of events in the store, counting every copy of repeated events. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns a read-only list of the times that {@code attendee} is busy, sorted by start time with
+   * no two time ranges overlapping.
+   */
+  public List<TimeRange> getBusyTimeRanges(String attendee) {
+    BusyTimeline timeline = timelinesByAttendee.get(attendee);
+    return timeline == null ? Collections.emptyList() : timeline.getMergedTimeRanges();
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+    List<TimeRange> timeRanges = new ArrayList<>();
+    for (String attendee : new HashSet<>(attendees)) {
+      timeRanges.addAll(getBusyTimeRanges(attendee));
+    }
+    return TimeRanges.merge(timeRanges);
+  }
+
+  /** The time ranges of one attendee's events, along with their merged busy times. */
+  private static final class BusyTimeline {
+    private static final Comparator<TimeRange> ORDER_BY_START_THEN_END =
+        TimeRange.ORDER_BY_START.thenComparing(TimeRange.ORDER_BY_END);
+
+    // How many of the attendee's events take place at each time range.
+    private final TreeMap<TimeRange, Integer> timeRangeCounts =
+        new TreeMap<>(ORDER_BY_START_THEN_END);
+
+    // The merged busy times, as a map from the start of each busy block to its end.
+    private final TreeMap<Integer, Integer> mergedEndsByStart = new TreeMap<>();
+
+    // The merged busy times as a list, rebuilt on the first read after each change.
+    private List<TimeRange> mergedTimeRanges;
+
+    boolean isEmpty() {
+      return timeRangeCounts.isEmpty();
+    }
+
+    void add(TimeRange timeRange) {
+      // Nobody is busy during a time range with no duration.
+      if (timeRange.duration() <= 0) {
+        return;
+      }
+      timeRangeCounts.merge(timeRange, 1, Integer::sum);
+      mergedTimeRanges = null;
+
+      int start = timeRange.start();
+      int end = timeRange.end();
+
+      // Joins the busy block just before the new time range if they overlap, then swallows every
+      // busy block that starts before the (possibly grown) new block ends.
+      Map.Entry<Integer, Integer> previous = mergedEndsByStart.floorEntry(start);
+      if (previous != null && previous.getValue() > start) {
+        start = previous.getKey();
+        end = Math.max(end, previous.getValue());
+        mergedEndsByStart.remove(previous.getKey());
+      }
+
+      Map.Entry<Integer, Integer> next = mergedEndsByStart.ceilingEntry(start);
+      while (next != null && next.getKey() < end) {
+        end = Math.max(end, next.getValue());
+        mergedEndsByStart.remove(next.getKey());
+        next = mergedEndsByStart.ceilingEntry(start);
+      }
+
+      mergedEndsByStart.put(start, end);
+    }
+
+    void remove(TimeRange timeRange) {
+      if (timeRange.duration() <= 0) {
+        return;
+      }
+      Integer count = timeRangeCounts.get(timeRange);
+      if (count == null) {
+        throw new IllegalStateException("removing a time range that was never added");
+      }
+      if (count == 1) {
+        timeRangeCounts.remove(timeRange);
+      } else {
+        timeRangeCounts.put(timeRange, count - 1);
+        // Another event still covers the exact same time, so the busy blocks don't change.
+        return;
+      }
+      mergedTimeRanges = null;
+
+      // Only the busy block that held the removed time range can change. Rebuilds it from the
+      // time ranges that start inside it, which are exactly the ones that were merged into it.
+      Map.Entry<Integer, Integer> block = mergedEndsByStart.floorEntry(timeRange.start());
+      int blockStart = block.getKey();
+      int blockEnd = block.getValue();
+      mergedEndsByStart.remove(blockStart);
+
+      Collection<TimeRange> remaining =
+          timeRangeCounts
+              .subMap(
+                  TimeRange.fromStartDuration(blockStart, 0),
+                  TimeRange.fromStartDuration(blockEnd, 0))
+              .keySet();
+      for (TimeRange merged : TimeRanges.merge(remaining)) {
+        mergedEndsByStart.put(merged.start(), merged.end());
+      }
+    }
+
+    List<TimeRange> getMergedTimeRanges() {
+      if (mergedTimeRanges == null) {
+        List<TimeRange> timeRanges = new ArrayList<>(mergedEndsByStart.size());
+        mergedEndsByStart.forEach(
+            (start, end) -> timeRanges.add(TimeRange.fromStartEnd(start, end, false)));
+        mergedTimeRanges = Collections.unmodifiableList(timeRanges);
+      }
+      return mergedTimeRanges;
+    }
+  }
+}
@@ -14,14 +14,50 @@
 
 package com.google.sps;
 
+import com.google.common.collect.Iterators;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public final class FindMeetingQuery {
+  // The most room queryBest sets aside for its best candidates before it has seen any.
+  private static final int INITIAL_BEST_CAPACITY = 64;
+
+  private final SchedulerMetrics metrics;
+
+  /** Creates a query that doesn't record any metrics. */
+  public FindMeetingQuery() {
+    this(SchedulerMetrics.disabled());
+  }
+
+  /**
+   * Creates a query that records what {@link #query(AttendeeCalendar, MeetingRequest)} does in
+   * {@code metrics}. The same metrics may be shared by many queries.
+   */
+  public FindMeetingQuery(SchedulerMetrics metrics) {
+    if (metrics == null) {
+      throw new IllegalArgumentException("metrics cannot be null");
+    }
+    this.metrics = metrics;
+  }
+
+  /** Returns the metrics this query records in. */
+  SchedulerMetrics getMetrics() {
+    return metrics;
+  }
+
   /**
    * Finds a list of potential meeting times based on the meeting request and a list of existing
    * events and their attendees. Picks time slots if one or more time slots exists so that both
@@ -29,6 +65,24 @@ public final class FindMeetingQuery {
    * the mandatory attendees.
    */
   public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
+    AttendeeCalendar calendar = (attendees) -> getAllBusyTimeRanges(events, attendees);
+    return query(calendar, request);
+  }
+
+  /**
+   * Finds a list of potential meeting times the same way as {@link #query(Collection,
+   * MeetingRequest)}, but looks up the busy times of the requested attendees in a calendar such as
+   * a prebuilt {@code AttendeeIndex} instead of scanning every event. Reusing one calendar across
+   * queries means that each query only touches the events of the people it asks about.
+   *
+   * <p>Only times inside the request's availability windows, and inside the availability windows of
+   * every attendee that has them, are returned.
+   */
+  public Collection<TimeRange> query(AttendeeCalendar calendar, MeetingRequest request) {
+    long queryStart = metrics.startTimer();
+    metrics.add(SchedulerMetrics.Counter.QUERIES, 1);
+
+    calendar = withAvailability(calendar, request);
     Collection<String> mandatoryAttendees = request.getAttendees();
     Collection<String> optionalAttendees = request.getOptionalAttendees();
     long meetingDurationMinutes = request.getDuration();
@@ -36,120 +90,739 @@ public final class FindMeetingQuery {
     List<String> combinedAttendees = new ArrayList<String>(mandatoryAttendees);
     combinedAttendees.addAll(optionalAttendees);
 
-    List<TimeRange> combinedBusyTimeRanges = getAllBusyTimeRanges(events, combinedAttendees);
-    sortTimeRangesByStart(combinedBusyTimeRanges);
+    List<TimeRange> combinedBusyTimeRanges = lookUpBusyTimeRanges(calendar, combinedAttendees);
     List<TimeRange> combinedFreeTimeRanges =
         getFreeTimeRanges(combinedBusyTimeRanges, meetingDurationMinutes);
 
     if (mandatoryAttendees.isEmpty()
         || optionalAttendees.isEmpty()
         || !combinedFreeTimeRanges.isEmpty()) {
+      metrics.recordPhase(SchedulerMetrics.Phase.QUERY, queryStart);
       return combinedFreeTimeRanges;
     }
 
     // If the combined free time list is empty, it means there is not time block
     // where all mandatory and optional attendees are available.
     // Runs the procedure on mandatory attendees only to find free times for them.
+    metrics.add(SchedulerMetrics.Counter.FALLBACKS_TO_MANDATORY, 1);
     List<TimeRange> mandatoryAttendeesBusyTimeRanges =
-        getAllBusyTimeRanges(events, mandatoryAttendees);
-    sortTimeRangesByStart(mandatoryAttendeesBusyTimeRanges);
+        lookUpBusyTimeRanges(calendar, mandatoryAttendees);
 
-    return getFreeTimeRanges(mandatoryAttendeesBusyTimeRanges, meetingDurationMinutes);
+    List<TimeRange> mandatoryFreeTimeRanges =
+        getFreeTimeRanges(mandatoryAttendeesBusyTimeRanges, meetingDurationMinutes);
+    metrics.recordPhase(SchedulerMetrics.Phase.QUERY, queryStart);
+    return mandatoryFreeTimeRanges;
   }
 
   /**
-   * Constructs all the time ranges that any of the required attendees is busy. These time ranges
-   * cannot be part of the potential meeting time.
+   * Finds the possible meeting times for several meeting lengths at once. Each list of time ranges
+   * is what {@link #query(AttendeeCalendar, MeetingRequest)} would return for {@code request} with
+   * that duration, but the attendees' busy times are only looked up and merged once for all the
+   * durations. The duration of {@code request} itself is ignored.
+   *
+   * @return the possible meeting times for each duration, in the same order as {@code durations}
+   *     and with one entry for each of them, even if some durations are repeated
    */
-  private List<TimeRange> getAllBusyTimeRanges(
-      Collection<Event> events, Collection<String> requiredAttendees) {
+  public List<Collection<TimeRange>> queryForDurations(
+      AttendeeCalendar calendar, MeetingRequest request, List<Long> durations) {
+    // Counts as one query however many durations it answers, since the busy times are only looked
+    // up once.
+    long queryStart = metrics.startTimer();
+    metrics.add(SchedulerMetrics.Counter.QUERIES, 1);
+
+    calendar = withAvailability(calendar, request);
+    Collection<String> mandatoryAttendees = request.getAttendees();
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+
+    List<String> combinedAttendees = new ArrayList<String>(mandatoryAttendees);
+    combinedAttendees.addAll(optionalAttendees);
+
+    List<TimeRange> combinedBusyTimeRanges = lookUpBusyTimeRanges(calendar, combinedAttendees);
+    // Only looked up if some duration doesn't fit the optional attendees.
+    List<TimeRange> mandatoryAttendeesBusyTimeRanges = null;
+
+    List<Collection<TimeRange>> freeTimeRangesByDuration = new ArrayList<>(durations.size());
+    for (long meetingDurationMinutes : durations) {
+      List<TimeRange> freeTimeRanges =
+          getFreeTimeRanges(combinedBusyTimeRanges, meetingDurationMinutes);
+
+      if (!mandatoryAttendees.isEmpty()
+          && !optionalAttendees.isEmpty()
+          && freeTimeRanges.isEmpty()) {
+        if (mandatoryAttendeesBusyTimeRanges == null) {
+          metrics.add(SchedulerMetrics.Counter.FALLBACKS_TO_MANDATORY, 1);
+          mandatoryAttendeesBusyTimeRanges = lookUpBusyTimeRanges(calendar, mandatoryAttendees);
+        }
+        freeTimeRanges =
+            getFreeTimeRanges(mandatoryAttendeesBusyTimeRanges, meetingDurationMinutes);
+      }
+      freeTimeRangesByDuration.add(freeTimeRanges);
+    }
+    metrics.recordPhase(SchedulerMetrics.Phase.QUERY, queryStart);
+    return freeTimeRangesByDuration;
+  }
+
+  /**
+   * Finds the times a meeting can be held at together with the rooms it can be held in, following
+   * the same rules for optional attendees as {@link #query(AttendeeCalendar, MeetingRequest)}. A
+   * room qualifies if it can hold everyone who is invited at that time and is free for the whole
+   * meeting. Only the rooms big enough are looked at, and each room's free time is found by
+   * sweeping its busy times together with the attendees' busy times, which were only looked up
+   * once.
+   *
+   * @return every possible pair of a time range and a room, sorted by start time and then by room
+   *     capacity, smallest first
+   */
+  public List<RoomBooking> queryWithRooms(
+      AttendeeCalendar calendar, RoomIndex rooms, MeetingRequest request) {
+    calendar = withAvailability(calendar, request);
+    Collection<String> mandatoryAttendees = request.getAttendees();
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+
+    // A set, so that someone listed as both mandatory and optional only takes up one seat.
+    Set<String> combinedAttendees = new HashSet<>(mandatoryAttendees);
+    combinedAttendees.addAll(optionalAttendees);
+
+    List<RoomBooking> bookings =
+        getRoomBookings(
+            calendar.getBusyTimeRanges(combinedAttendees),
+            combinedAttendees.size(),
+            rooms,
+            request.getDuration());
+    if (mandatoryAttendees.isEmpty() || optionalAttendees.isEmpty() || !bookings.isEmpty()) {
+      return bookings;
+    }
+
+    // No room fits everyone at a time that everyone can make, so leave out the optional attendees.
+    return getRoomBookings(
+        calendar.getBusyTimeRanges(mandatoryAttendees),
+        new HashSet<>(mandatoryAttendees).size(),
+        rooms,
+        request.getDuration());
+  }
+
+  /** Finds the times that each room big enough for {@code people} is free along with them. */
+  private List<RoomBooking> getRoomBookings(
+      List<TimeRange> attendeesBusyTimeRanges,
+      int people,
+      RoomIndex rooms,
+      long meetingDurationMinutes) {
+    List<RoomBooking> bookings = new ArrayList<>();
+    if (getFreeTimeRanges(attendeesBusyTimeRanges, meetingDurationMinutes).isEmpty()) {
+      // The attendees can't meet at all, so no room can help.
+      return bookings;
+    }
+
+    for (Room room : rooms.getRoomsFor(people)) {
+      List<TimeRange> busyTimeRanges =
+          TimeRanges.union(attendeesBusyTimeRanges, rooms.getBusyTimeRanges(room));
+      forEachFreeTimeRange(
+          busyTimeRanges,
+          meetingDurationMinutes,
+          (freeTimeRange) -> bookings.add(new RoomBooking(freeTimeRange, room)));
+    }
+
+    bookings.sort(RoomBooking.ORDER_BY_START_THEN_CAPACITY);
+    return bookings;
+  }
+
+  /**
+   * Answers many meeting requests against the same calendar at once, in parallel. Requests that ask
+   * about the same group of attendees share one merge of that group's busy times, which matters
+   * when callers try many variations of one meeting. Two requests that need a new group at the same
+   * moment may both merge it, but only the first merge is kept.
+   *
+   * @return the answer to each request, in the same order as {@code requests}
+   */
+  public List<Collection<TimeRange>> queryAll(
+      AttendeeCalendar calendar, List<MeetingRequest> requests) {
+    Map<Set<String>, List<TimeRange>> busyTimeRangesByGroup = new ConcurrentHashMap<>();
+    AttendeeCalendar sharedCalendar =
+        (attendees) -> {
+          Set<String> group = new HashSet<>(attendees);
+          List<TimeRange> busyTimeRanges = busyTimeRangesByGroup.get(group);
+          if (busyTimeRanges != null) {
+            return busyTimeRanges;
+          }
+
+          // Looks the group up outside of the map, since the lookup may itself run in parallel and
+          // computeIfAbsent would hold a lock on part of the map for all of it.
+          busyTimeRanges = Collections.unmodifiableList(calendar.getBusyTimeRanges(group));
+          List<TimeRange> existing = busyTimeRangesByGroup.putIfAbsent(group, busyTimeRanges);
+          return existing != null ? existing : busyTimeRanges;
+        };
+
+    return requests
+        .parallelStream()
+        .map((request) -> query(sharedCalendar, request))
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Finds the {@code limit} best meeting times according to {@code ranking}, best first. The
+   * candidates are the free time ranges of the mandatory attendees, split wherever an optional
+   * attendee becomes busy or free so that each candidate is either free or busy for each of them
+   * throughout. Optional attendees only count through the ranking, for example with {@link
+   * SlotRankings#fewestConflicts}. Only the best {@code limit} candidates seen so far are kept
+   * while the free time is swept, so the cost of ranking grows with {@code log(limit)} rather than
+   * with the number of candidates.
+   *
+   * @param ranking orders time ranges from best to worst; ties are broken by start time
+   */
+  public List<TimeRange> queryBest(
+      AttendeeCalendar calendar, MeetingRequest request, int limit, Comparator<TimeRange> ranking) {
+    if (limit <= 0) {
+      throw new IllegalArgumentException("limit must be positive");
+    }
+
+    calendar = withAvailability(calendar, request);
+    Comparator<TimeRange> bestFirst = ranking.thenComparing(TimeRange.ORDER_BY_START);
+
+    // Keeps the worst of the best time ranges on top so that it is the one to drop when a better
+    // time range comes along.
+    // The heap grows as needed, so a very large limit, meaning every candidate, doesn't set aside
+    // room for that many up front.
+    PriorityQueue<TimeRange> best =
+        new PriorityQueue<>(Math.min(limit, INITIAL_BEST_CAPACITY) + 1, bestFirst.reversed());
+    int[] boundaries = getBusyBoundaries(calendar, request.getOptionalAttendees());
+    forEachFreeTimeRange(
+        calendar.getBusyTimeRanges(request.getAttendees()),
+        request.getDuration(),
+        (freeTimeRange) ->
+            forEachCandidate(
+                freeTimeRange,
+                boundaries,
+                request.getDuration(),
+                (candidate) -> {
+                  best.add(candidate);
+                  if (best.size() > limit) {
+                    best.poll();
+                  }
+                }));
+
+    List<TimeRange> bestTimeRanges = new ArrayList<>(best);
+    bestTimeRanges.sort(bestFirst);
+    return bestTimeRanges;
+  }
+
+  /**
+   * Returns the sorted, distinct times at which any of {@code attendees} becomes busy or free. Each
+   * attendee is looked up on their own, since merging everyone's busy times would hide the
+   * boundaries inside overlapping busy times.
+   */
+  private static int[] getBusyBoundaries(AttendeeCalendar calendar, Collection<String> attendees) {
+    List<TimeRange> busyTimeRanges = new ArrayList<>();
+    for (String attendee : new HashSet<>(attendees)) {
+      busyTimeRanges.addAll(calendar.getBusyTimeRanges(Collections.singleton(attendee)));
+    }
+    return busyTimeRanges.stream()
+        .flatMapToInt((timeRange) -> IntStream.of(timeRange.start(), timeRange.end()))
+        .sorted()
+        .distinct()
+        .toArray();
+  }
+
+  /**
+   * Splits {@code freeTimeRange} at {@code boundaries} and hands each piece that can hold the
+   * meeting to {@code candidates}. Pieces too short for the meeting are replaced by a meeting-sized
+   * time range starting where the piece does, so that a free time range full of short pieces still
+   * offers meetings that straddle them.
+   */
+  private static void forEachCandidate(
+      TimeRange freeTimeRange,
+      int[] boundaries,
+      long meetingDurationMinutes,
+      Consumer<TimeRange> candidates) {
+    int end = freeTimeRange.end();
+    int index = Arrays.binarySearch(boundaries, freeTimeRange.start());
+    int next = index >= 0 ? index + 1 : -index - 1;
+    if (next == boundaries.length || boundaries[next] >= end) {
+      candidates.accept(freeTimeRange);
+      return;
+    }
+
+    int pieceStart = freeTimeRange.start();
+    int previousSlotStart = -1;
+    while (pieceStart < end) {
+      int pieceEnd = next < boundaries.length && boundaries[next] < end ? boundaries[next++] : end;
+      if (pieceEnd - pieceStart >= meetingDurationMinutes) {
+        candidates.accept(TimeRange.fromStartEnd(pieceStart, pieceEnd, false));
+      } else {
+        int slotStart = (int) Math.min(pieceStart, end - meetingDurationMinutes);
+        if (slotStart != previousSlotStart) {
+          candidates.accept(TimeRange.fromStartDuration(slotStart, (int) meetingDurationMinutes));
+          previousSlotStart = slotStart;
+        }
+      }
+      pieceStart = pieceEnd;
+    }
+  }
+
+  /**
+   * Finds a list of potential meeting times the same way as {@link #query(AttendeeCalendar,
+   * MeetingRequest)}, but combines the attendees' calendars as per-minute bitmaps instead of
+   * merging lists of time ranges. The index caches a bitmap for each attendee, so each query only
+   * ORs a few fixed-size bitmaps together no matter how many events the attendees have.
+   */
+  public Collection<TimeRange> queryWithBitmaps(AttendeeIndex index, MeetingRequest request) {
+    Collection<String> mandatoryAttendees = request.getAttendees();
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+    long meetingDurationMinutes = request.getDuration();
+
+    MinuteBitmap mandatoryBusyBitmap =
+        index
+            .getBusyBitmap(mandatoryAttendees)
+            .or(MinuteBitmap.fromTimeRanges(getUnavailableTimeRanges(request, mandatoryAttendees)));
+    MinuteBitmap combinedBusyBitmap =
+        mandatoryBusyBitmap
+            .copy()
+            .or(index.getBusyBitmap(optionalAttendees))
+            .or(MinuteBitmap.fromTimeRanges(getUnavailableTimeRanges(request, optionalAttendees)));
+    List<TimeRange> combinedFreeTimeRanges =
+        combinedBusyBitmap.findClearRuns(meetingDurationMinutes);
+
+    if (mandatoryAttendees.isEmpty()
+        || optionalAttendees.isEmpty()
+        || !combinedFreeTimeRanges.isEmpty()) {
+      return combinedFreeTimeRanges;
+    }
+
+    // Nobody had to be merged twice: the mandatory attendees' bitmap was kept aside before the
+    // optional attendees were added in.
+    return mandatoryBusyBitmap.findClearRuns(meetingDurationMinutes);
+  }
+
+  /**
+   * Finds the meeting times that every mandatory attendee can make and that as many optional
+   * attendees as possible can make. Unlike {@link #query(AttendeeCalendar, MeetingRequest)}, which
+   * either fits all optional attendees or none of them, this returns the time ranges where the
+   * largest possible number of optional attendees is free for the whole meeting. Meetings may end
+   * exactly at the end of the day.
+   *
+   * <p>Runs in a single sweep over the minutes of the day, so the cost grows with the number of
+   * busy time ranges of the attendees and not with the number of subsets of optional attendees.
+   */
+  public Collection<TimeRange> queryMaximizingOptionalAttendees(
+      AttendeeCalendar calendar, MeetingRequest request) {
+    int meetingDurationMinutes = (int) Math.max(1, request.getDuration());
+    if (meetingDurationMinutes > TimeRange.WHOLE_DAY.duration()) {
+      return new ArrayList<TimeRange>();
+    }
+    calendar = withAvailability(calendar, request);
+
+    // Works with the minutes a meeting could start at rather than the minutes people are busy.
+    // Someone busy during [x, y) can't make a meeting that starts in [x - duration + 1, y), and
+    // each array below counts, for every possible start, how many people can't make it. The
+    // arrays hold differences between neighbouring starts so that each busy time range costs O(1).
+    int startCount = TimeRange.WHOLE_DAY.duration() - meetingDurationMinutes + 1;
+    int[] mandatoryConflicts = new int[startCount + 1];
+    int[] optionalConflicts = new int[startCount + 1];
+
+    addBlockedStarts(
+        calendar.getBusyTimeRanges(request.getAttendees()),
+        meetingDurationMinutes,
+        mandatoryConflicts);
+    for (String optionalAttendee : request.getOptionalAttendees()) {
+      addBlockedStarts(
+          calendar.getBusyTimeRanges(Collections.singleton(optionalAttendee)),
+          meetingDurationMinutes,
+          optionalConflicts);
+    }
+
+    // Turns the differences into counts and finds the fewest optional attendees that have to miss
+    // a meeting that all mandatory attendees can make.
+    int fewestOptionalConflicts = Integer.MAX_VALUE;
+    for (int start = 0; start < startCount; start++) {
+      if (start > 0) {
+        mandatoryConflicts[start] += mandatoryConflicts[start - 1];
+        optionalConflicts[start] += optionalConflicts[start - 1];
+      }
+      if (mandatoryConflicts[start] == 0) {
+        fewestOptionalConflicts = Math.min(fewestOptionalConflicts, optionalConflicts[start]);
+      }
+    }
+
+    // Every run of consecutive best starts becomes one time range, from the first start to the
+    // end of a meeting at the last start.
+    List<TimeRange> freeTimeRanges = new ArrayList<TimeRange>();
+    int runStart = -1;
+    for (int start = 0; start <= startCount; start++) {
+      boolean isBest =
+          start < startCount
+              && mandatoryConflicts[start] == 0
+              && optionalConflicts[start] == fewestOptionalConflicts;
+      if (isBest && runStart < 0) {
+        runStart = start;
+      } else if (!isBest && runStart >= 0) {
+        freeTimeRanges.add(
+            TimeRange.fromStartEnd(
+                /* start= */ runStart,
+                /* end= */ start - 1 + meetingDurationMinutes,
+                /* inclusive= */ false));
+        runStart = -1;
+      }
+    }
+    return freeTimeRanges;
+  }
 
-    List<TimeRange> busyTimesImmutable = new ArrayList<TimeRange>();
+  /**
+   * Finds meeting times along with the cost of the conflicts each one runs into, instead of only
+   * the times without any conflicts. Mandatory attendees can't skip events that are {@link
+   * Event.BusyType#BUSY}, but may skip tentative events and focus time at that event type's cost.
+   * Optional attendees may skip any event at its cost, and are charged the cost of a busy event
+   * outside of their availability windows. This answers in one pass what {@link #query(Collection,
+   * MeetingRequest)} needs two passes for, and still gives useful answers on days with no time that
+   * everyone is free. Meetings may end exactly at the end of the day.
+   *
+   * @return every range of meeting times that doesn't overlap a firm commitment of a mandatory
+   *     attendee, split wherever the cost changes, cheapest first and then by start time
+   */
+  public List<ScoredTimeRange> queryWithConflictCosts(
+      Collection<Event> events, MeetingRequest request) {
+    int meetingDurationMinutes = (int) Math.max(1, request.getDuration());
+    if (meetingDurationMinutes > TimeRange.WHOLE_DAY.duration()) {
+      return new ArrayList<ScoredTimeRange>();
+    }
+    Set<String> mandatoryAttendees = new HashSet<>(request.getAttendees());
+    Set<String> optionalAttendees = new HashSet<>(request.getOptionalAttendees());
 
-    Set<String> requiredAttendeeSet = new HashSet<>();
-    requiredAttendees.forEach(
-        (attendee) -> {
-          requiredAttendeeSet.add(attendee);
-        });
+    // Like queryMaximizingOptionalAttendees, works with the minutes a meeting could start at. Each
+    // event adds its weight where the meetings it overlaps start and takes it away where they stop
+    // overlapping it, so the sweep below sees every event boundary in order of time.
+    int startCount = TimeRange.WHOLE_DAY.duration() - meetingDurationMinutes + 1;
+    int[] firmConflicts = new int[startCount + 1];
+    long[] conflictCosts = new long[startCount + 1];
 
     for (Event event : events) {
-      // First, find if any of the required attendees are in the current event's guest list.
-      boolean hasAnyAttendee =
-          event.getAttendees().stream().filter(requiredAttendeeSet::contains).findAny().isPresent();
+      boolean isFirmConflict = false;
+      int skippingAttendees = 0;
+      for (String attendee : event.getAttendees()) {
+        if (mandatoryAttendees.contains(attendee)) {
+          if (event.getBusyType() == Event.BusyType.BUSY) {
+            isFirmConflict = true;
+          } else {
+            skippingAttendees++;
+          }
+        } else if (optionalAttendees.contains(attendee)) {
+          skippingAttendees++;
+        }
+      }
+
+      if (isFirmConflict) {
+        addFirmConflict(event.getWhen(), meetingDurationMinutes, firmConflicts);
+      } else if (skippingAttendees > 0) {
+        long cost = (long) skippingAttendees * event.getBusyType().getConflictCost();
+        addConflictCost(event.getWhen(), meetingDurationMinutes, conflictCosts, cost);
+      }
+    }
+
+    for (TimeRange unavailable : getUnavailableTimeRanges(request, mandatoryAttendees)) {
+      addFirmConflict(unavailable, meetingDurationMinutes, firmConflicts);
+    }
+    for (String optionalAttendee : optionalAttendees) {
+      for (TimeRange unavailable :
+          getUnavailableTimeRanges(request, Collections.singleton(optionalAttendee))) {
+        addConflictCost(
+            unavailable,
+            meetingDurationMinutes,
+            conflictCosts,
+            Event.BusyType.BUSY.getConflictCost());
+      }
+    }
+
+    // Sweeps the starts in order, keeping running totals, and closes the current range of starts
+    // whenever a firm conflict begins or the cost changes.
+    List<ScoredTimeRange> scoredTimeRanges = new ArrayList<ScoredTimeRange>();
+    int firmConflictCount = 0;
+    long cost = 0;
+    int runStart = -1;
+    long runCost = 0;
+    for (int start = 0; start <= startCount; start++) {
+      if (start < startCount) {
+        firmConflictCount += firmConflicts[start];
+        cost += conflictCosts[start];
+      }
+      boolean isPossible = start < startCount && firmConflictCount == 0;
+
+      if (runStart >= 0 && (!isPossible || cost != runCost)) {
+        scoredTimeRanges.add(
+            new ScoredTimeRange(
+                TimeRange.fromStartEnd(
+                    /* start= */ runStart,
+                    /* end= */ start - 1 + meetingDurationMinutes,
+                    /* inclusive= */ false),
+                runCost));
+        runStart = -1;
+      }
+      if (isPossible && runStart < 0) {
+        runStart = start;
+        runCost = cost;
+      }
+    }
+
+    scoredTimeRanges.sort(ScoredTimeRange.ORDER_BY_COST);
+    return scoredTimeRanges;
+  }
+
+  /** Adds a firm conflict to every meeting start that overlaps {@code timeRange}. */
+  private static void addFirmConflict(
+      TimeRange timeRange, int meetingDurationMinutes, int[] firmConflicts) {
+    int startCount = firmConflicts.length - 1;
+    int from = Math.max(0, timeRange.start() - meetingDurationMinutes + 1);
+    int to = Math.min(startCount, timeRange.end());
+    if (timeRange.duration() > 0 && from < to) {
+      firmConflicts[from]++;
+      firmConflicts[to]--;
+    }
+  }
+
+  /** Adds {@code cost} to every meeting start that overlaps {@code timeRange}. */
+  private static void addConflictCost(
+      TimeRange timeRange, int meetingDurationMinutes, long[] conflictCosts, long cost) {
+    int startCount = conflictCosts.length - 1;
+    int from = Math.max(0, timeRange.start() - meetingDurationMinutes + 1);
+    int to = Math.min(startCount, timeRange.end());
+    if (timeRange.duration() > 0 && from < to) {
+      conflictCosts[from] += cost;
+      conflictCosts[to] -= cost;
+    }
+  }
 
-      if (!hasAnyAttendee) {
+  /**
+   * Adds one conflict to every meeting start that overlaps one of {@code busyTimeRanges}. The busy
+   * time ranges must belong to one person (or one group counted as a single conflict), be sorted by
+   * start and not overlap, so that each start is counted at most once even when it overlaps more
+   * than one of them.
+   */
+  private static void addBlockedStarts(
+      List<TimeRange> busyTimeRanges, int meetingDurationMinutes, int[] conflicts) {
+    int startCount = conflicts.length - 1;
+    int blockedStart = -1;
+    int blockedEnd = -1;
+
+    for (TimeRange busyTimeRange : busyTimeRanges) {
+      int from = Math.max(0, busyTimeRange.start() - meetingDurationMinutes + 1);
+      int to = Math.min(startCount, busyTimeRange.end());
+      if (from >= to) {
+        continue;
+      }
+
+      if (blockedEnd >= from) {
+        blockedEnd = Math.max(blockedEnd, to);
         continue;
       }
+      if (blockedStart >= 0) {
+        conflicts[blockedStart]++;
+        conflicts[blockedEnd]--;
+      }
+      blockedStart = from;
+      blockedEnd = to;
+    }
 
-      // If the current event's attendee list contains a required attendee,
-      // adds this event's time range to the set of all busy times,
-      // after checking for overlapping time ranges.
-      TimeRange currEventTimeRange = event.getWhen();
-      busyTimesImmutable = getUpdatedBusyTimeRanges(currEventTimeRange, busyTimesImmutable);
+    if (blockedStart >= 0) {
+      conflicts[blockedStart]++;
+      conflicts[blockedEnd]--;
     }
-    return busyTimesImmutable;
   }
 
   /**
-   * Compares a given event's time slot with all the existing busy time slots. Merges the current
-   * event time slot with a busy time slot if they overlap. Adds the current event's time slot to
-   * the list of busy slots in the end if there is no overlap between the current event's time and
-   * any of the existing busy time ranges.
+   * Finds a list of potential meeting times within {@code horizon}, which may span many days, with
+   * the same rules for optional attendees and availability windows as {@link
+   * #query(AttendeeCalendar, MeetingRequest)}. The windows apply to every day of the horizon. Free
+   * time is not split at midnight, so a long meeting may run from one day into the next when the
+   * windows allow it.
    *
-   * @param current event's time range; a collection of busy time slots
-   * @return an updated list of busy times after overlaps are handled
+   * @param events the events to consider, in any order
    */
-  private List<TimeRange> getUpdatedBusyTimeRanges(
-      TimeRange currEventTimeRange, List<TimeRange> originalBusyTimes) {
-    boolean isOverlapped = false;
+  public List<EpochTimeRange> queryHorizon(
+      Collection<EpochEvent> events, MeetingRequest request, EpochTimeRange horizon) {
+    List<EpochEvent> eventsByStart = new ArrayList<>(events);
+    eventsByStart.sort((a, b) -> EpochTimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+    return queryHorizon(eventsByStart.iterator(), request, horizon);
+  }
 
-    List<TimeRange> updatedBusyTimes = new ArrayList<TimeRange>();
+  /**
+   * Finds a list of potential meeting times within {@code horizon} the same way as {@link
+   * #queryHorizon(Collection, MeetingRequest, EpochTimeRange)}, taking both one-off and recurring
+   * events into account. Recurring events are never expanded up front: the occurrences of those
+   * that any requested attendee goes to are created one at a time within the horizon and merged by
+   * start time with the one-off events as the sweep reads them.
+   */
+  public List<EpochTimeRange> queryHorizon(
+      Collection<EpochEvent> events,
+      Collection<RecurringEvent> recurringEvents,
+      MeetingRequest request,
+      EpochTimeRange horizon) {
+    Set<String> requestedAttendees = new HashSet<>(request.getAttendees());
+    requestedAttendees.addAll(request.getOptionalAttendees());
 
-    for (TimeRange busyTimeRange : originalBusyTimes) {
-      if (currEventTimeRange.overlaps(busyTimeRange)) {
-        TimeRange combinedTimeRange = getCombinedTimeRange(currEventTimeRange, busyTimeRange);
-        updatedBusyTimes.add(combinedTimeRange);
-        isOverlapped = true;
-        currEventTimeRange = combinedTimeRange;
-      } else {
-        updatedBusyTimes.add(busyTimeRange);
+    List<EpochEvent> eventsByStart = new ArrayList<>(events);
+    eventsByStart.sort((a, b) -> EpochTimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()));
+
+    List<Iterator<EpochEvent>> streams = new ArrayList<>();
+    streams.add(eventsByStart.iterator());
+    for (RecurringEvent recurringEvent : recurringEvents) {
+      if (!Collections.disjoint(recurringEvent.getAttendees(), requestedAttendees)) {
+        streams.add(recurringEvent.occurrences(horizon));
+      }
+    }
+
+    return queryHorizon(
+        Iterators.mergeSorted(
+            streams, (a, b) -> EpochTimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen())),
+        request,
+        horizon);
+  }
+
+  /**
+   * Finds a list of potential meeting times within {@code horizon} the same way as {@link
+   * #queryHorizon(Collection, MeetingRequest, EpochTimeRange)}, in a single pass over events that
+   * are already sorted by start time. Only the current busy block and the free time found so far
+   * are kept in memory, and events that start after the horizon are never read.
+   *
+   * @param eventsByStart the events to consider, sorted by start time
+   * @throws IllegalArgumentException if the events are not sorted by start time
+   */
+  public List<EpochTimeRange> queryHorizon(
+      Iterator<EpochEvent> eventsByStart, MeetingRequest request, EpochTimeRange horizon) {
+    Collection<String> mandatoryAttendees = request.getAttendees();
+    Collection<String> optionalAttendees = request.getOptionalAttendees();
+    long meetingDurationMinutes = request.getDuration();
+
+    // Sweeps for the combined attendees and for only the mandatory ones at the same time, so that
+    // falling back to the mandatory attendees doesn't need a second pass over the events.
+    Set<String> combinedAttendees = new HashSet<>(mandatoryAttendees);
+    combinedAttendees.addAll(optionalAttendees);
+    HorizonSweep combinedSweep =
+        new HorizonSweep(
+            combinedAttendees,
+            horizon,
+            TimeRanges.complement(getUnavailableTimeRanges(request, combinedAttendees)));
+    HorizonSweep mandatorySweep =
+        new HorizonSweep(
+            mandatoryAttendees,
+            horizon,
+            TimeRanges.complement(getUnavailableTimeRanges(request, mandatoryAttendees)));
+
+    long previousStart = Long.MIN_VALUE;
+    while (eventsByStart.hasNext()) {
+      EpochEvent event = eventsByStart.next();
+      EpochTimeRange when = event.getWhen();
+
+      if (when.start() < previousStart) {
+        throw new IllegalArgumentException("events must be sorted by start time");
+      }
+      previousStart = when.start();
+
+      if (when.start() >= horizon.end()) {
+        break;
       }
+      combinedSweep.accept(event, meetingDurationMinutes);
+      mandatorySweep.accept(event, meetingDurationMinutes);
     }
 
-    // If the current event doesn't overlap with any existing busy time range,
-    // add the current event's time range to the set of all busy time slots.
-    if (!isOverlapped) {
-      updatedBusyTimes.add(currEventTimeRange);
+    List<EpochTimeRange> combinedFreeTimeRanges = combinedSweep.finish(meetingDurationMinutes);
+    if (mandatoryAttendees.isEmpty()
+        || optionalAttendees.isEmpty()
+        || !combinedFreeTimeRanges.isEmpty()) {
+      return combinedFreeTimeRanges;
     }
+    return mandatorySweep.finish(meetingDurationMinutes);
+  }
 
-    return updatedBusyTimes;
+  /**
+   * Returns {@code calendar} with the times outside of the request's availability windows marked as
+   * busy, so that the sweeps over busy times skip them like any other busy time. Global windows
+   * apply to every group of attendees, including nobody; each attendee's own windows only apply to
+   * groups that include them.
+   */
+  private static AttendeeCalendar withAvailability(
+      AttendeeCalendar calendar, MeetingRequest request) {
+    if (request.getAvailability().isEmpty() && request.getAttendeeAvailability().isEmpty()) {
+      return calendar;
+    }
+
+    return new AttendeeCalendar() {
+      @Override
+      public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+        return TimeRanges.union(
+            calendar.getBusyTimeRanges(attendees), getUnavailableTimeRanges(request, attendees));
+      }
+
+      @Override
+      public long getVersion() {
+        return calendar.getVersion();
+      }
+    };
   }
 
-  /** Creates a new overall combined time range for two time ranges that overlap. */
-  private static TimeRange getCombinedTimeRange(TimeRange a, TimeRange b) {
-    int aStart = a.start();
-    int aEnd = a.end();
-    int bStart = b.start();
-    int bEnd = b.end();
+  /**
+   * Returns the times of day that fall outside of the request's availability windows or outside of
+   * the windows of any of {@code attendees}. The returned list is sorted by start time and no two
+   * time ranges in it overlap.
+   */
+  private static List<TimeRange> getUnavailableTimeRanges(
+      MeetingRequest request, Collection<String> attendees) {
+    List<TimeRange> unavailableTimeRanges = new ArrayList<TimeRange>();
+    if (!request.getAvailability().isEmpty()) {
+      unavailableTimeRanges = TimeRanges.complement(TimeRanges.merge(request.getAvailability()));
+    }
 
-    boolean isInclusive = false;
-    if ((aEnd > bEnd && a.end() == TimeRange.END_OF_DAY)
-        || (bEnd > aEnd && b.end() == TimeRange.END_OF_DAY)) {
-      isInclusive = true;
+    Map<String, List<TimeRange>> attendeeAvailability = request.getAttendeeAvailability();
+    for (String attendee : attendees) {
+      List<TimeRange> windows = attendeeAvailability.get(attendee);
+      if (windows != null && !windows.isEmpty()) {
+        unavailableTimeRanges =
+            TimeRanges.union(
+                unavailableTimeRanges, TimeRanges.complement(TimeRanges.merge(windows)));
+      }
     }
+    return unavailableTimeRanges;
+  }
+
+  /**
+   * Constructs all the time ranges that any of the required attendees is busy. These time ranges
+   * cannot be part of the potential meeting time. The returned list is sorted by start time and no
+   * two time ranges in it overlap.
+   */
+  private List<TimeRange> getAllBusyTimeRanges(
+      Collection<Event> events, Collection<String> requiredAttendees) {
+    long filterStart = metrics.startTimer();
+    Set<String> requiredAttendeeSet = new HashSet<>(requiredAttendees);
 
-    TimeRange combinedTimeRange =
-        TimeRange.fromStartEnd(
-            /* start= */ Math.min(aStart, bStart),
-            /* end= */ Math.max(aEnd, bEnd),
-            /* inclusive= */ isInclusive);
+    // Collects the time range of every event that any of the required attendees is going to in an
+    // IntervalBuffer, then merges them all at once instead of merging each event into the busy
+    // list one by one.
+    IntervalBuffer buffer = IntervalBuffer.forCurrentThread();
+    int matchedEventCount = 0;
+    for (Event event : events) {
+      boolean hasAnyAttendee =
+          event.getAttendees().stream().anyMatch(requiredAttendeeSet::contains);
+
+      if (hasAnyAttendee) {
+        buffer.add(event.getWhen());
+        matchedEventCount++;
+      }
+    }
+    metrics.recordPhase(SchedulerMetrics.Phase.FILTER_EVENTS, filterStart);
+    metrics.add(SchedulerMetrics.Counter.EVENTS_SCANNED, events.size());
+    metrics.add(SchedulerMetrics.Counter.EVENTS_MATCHED, matchedEventCount);
+    metrics.add(SchedulerMetrics.Counter.TIME_RANGES_MERGED, buffer.size());
 
-    return combinedTimeRange;
+    long mergeStart = metrics.startTimer();
+    buffer.merge();
+    List<TimeRange> mergedTimeRanges = buffer.toTimeRanges();
+    metrics.recordPhase(SchedulerMetrics.Phase.MERGE, mergeStart);
+    return mergedTimeRanges;
   }
 
-  /** Sorts a list of time ranges by their start time. */
-  private void sortTimeRangesByStart(List<TimeRange> allTimeRanges) {
-    Collections.sort(allTimeRanges, TimeRange.ORDER_BY_START);
+  /** Gets the busy times of {@code attendees} from {@code calendar}, timing the lookup. */
+  private List<TimeRange> lookUpBusyTimeRanges(
+      AttendeeCalendar calendar, Collection<String> attendees) {
+    long lookupStart = metrics.startTimer();
+    List<TimeRange> busyTimeRanges = calendar.getBusyTimeRanges(attendees);
+    metrics.recordPhase(SchedulerMetrics.Phase.LOOKUP_BUSY_TIMES, lookupStart);
+    return busyTimeRanges;
   }
 
   /**
@@ -158,13 +831,27 @@ public final class FindMeetingQuery {
    */
   private List<TimeRange> getFreeTimeRanges(
       List<TimeRange> allBusyTimeRanges, long meetingDurationMinutes) {
+    long findStart = metrics.startTimer();
     List<TimeRange> freeTimeRanges = new ArrayList<TimeRange>();
+    forEachFreeTimeRange(allBusyTimeRanges, meetingDurationMinutes, freeTimeRanges::add);
+    metrics.recordPhase(SchedulerMetrics.Phase.FIND_FREE_TIME, findStart);
+    metrics.add(SchedulerMetrics.Counter.FREE_TIME_RANGES_FOUND, freeTimeRanges.size());
+    return freeTimeRanges;
+  }
 
+  /**
+   * Finds all free time ranges the same way as {@link #getFreeTimeRanges(List, long)}, but hands
+   * each one to {@code freeTimeRanges} in order of start time instead of collecting them in a list.
+   */
+  private static void forEachFreeTimeRange(
+      List<TimeRange> allBusyTimeRanges,
+      long meetingDurationMinutes,
+      Consumer<TimeRange> freeTimeRanges) {
     if (allBusyTimeRanges.isEmpty() && meetingDurationMinutes <= TimeRange.END_OF_DAY) {
-      freeTimeRanges.add(
+      freeTimeRanges.accept(
           TimeRange.fromStartEnd(
               /* start= */ 0, /* end= */ TimeRange.END_OF_DAY, /* inclusive= */ true));
-      return freeTimeRanges;
+      return;
     }
 
     // A for loop is necessary because each consecutive pair
@@ -173,7 +860,7 @@ public final class FindMeetingQuery {
       if (i == 0) {
         int earliestStart = allBusyTimeRanges.get(i).start();
         if (earliestStart >= meetingDurationMinutes) {
-          freeTimeRanges.add(
+          freeTimeRanges.accept(
               TimeRange.fromStartEnd(
                   /* start= */ TimeRange.START_OF_DAY,
                   /* end= */ earliestStart,
@@ -187,7 +874,7 @@ public final class FindMeetingQuery {
           // According to TimeRange class's implementation of the time ranges,
           // TimeRange.END_OF_DAY variable should have "true" for the
           // "inclusive" parameter.
-          freeTimeRanges.add(
+          freeTimeRanges.accept(
               TimeRange.fromStartEnd(
                   /* start= */ latestEnd, /* end= */ TimeRange.END_OF_DAY, /* inclusive= */ true));
         }
@@ -196,12 +883,94 @@ public final class FindMeetingQuery {
         int nextStart = allBusyTimeRanges.get(i + 1).start();
 
         if (nextStart - currEnd >= meetingDurationMinutes) {
-          freeTimeRanges.add(
+          freeTimeRanges.accept(
               TimeRange.fromStartEnd(
                   /* start= */ currEnd, /* end= */ nextStart, /* inclusive= */ false));
         }
       }
     }
-    return freeTimeRanges;
+  }
+
+  /**
+   * Tracks the free time of a group of attendees while their events are fed in by start time. Only
+   * the end of the latest busy block needs to be remembered, since every later event starts at or
+   * after the events seen so far. Free time is clipped to the group's availability windows on each
+   * day it covers.
+   */
+  private static final class HorizonSweep {
+    private final Set<String> attendees;
+    private final EpochTimeRange horizon;
+    // The times of each day that the group is available, sorted by start time.
+    private final List<TimeRange> availableTimeRanges;
+    private final boolean isAlwaysAvailable;
+    private final List<EpochTimeRange> freeTimeRanges = new ArrayList<>();
+    private long busyEnd;
+
+    HorizonSweep(
+        Collection<String> attendees, EpochTimeRange horizon, List<TimeRange> availableTimeRanges) {
+      this.attendees = new HashSet<>(attendees);
+      this.horizon = horizon;
+      this.availableTimeRanges = availableTimeRanges;
+      this.isAlwaysAvailable =
+          availableTimeRanges.size() == 1 && availableTimeRanges.get(0).equals(TimeRange.WHOLE_DAY);
+      this.busyEnd = horizon.start();
+    }
+
+    void accept(EpochEvent event, long meetingDurationMinutes) {
+      EpochTimeRange when = event.getWhen();
+      if (when.duration() <= 0 || when.end() <= busyEnd) {
+        return;
+      }
+      if (!event.getAttendees().stream().anyMatch(attendees::contains)) {
+        return;
+      }
+
+      addFreeTimeRange(busyEnd, when.start(), meetingDurationMinutes);
+      busyEnd = when.end();
+    }
+
+    List<EpochTimeRange> finish(long meetingDurationMinutes) {
+      addFreeTimeRange(busyEnd, horizon.end(), meetingDurationMinutes);
+      return freeTimeRanges;
+    }
+
+    private void addFreeTimeRange(long start, long end, long meetingDurationMinutes) {
+      end = Math.min(end, horizon.end());
+      if (isAlwaysAvailable) {
+        addAvailableTimeRange(start, end, meetingDurationMinutes);
+        return;
+      }
+
+      // Intersects the free time with the windows of each day it covers. A window that runs to
+      // midnight and one that starts at midnight join up, so meetings can still span them.
+      long pieceStart = Long.MIN_VALUE;
+      long pieceEnd = Long.MIN_VALUE;
+      for (long day = Math.floorDiv(start, EpochTimeRange.MINUTES_PER_DAY);
+          day * EpochTimeRange.MINUTES_PER_DAY < end;
+          day++) {
+        long dayStart = day * EpochTimeRange.MINUTES_PER_DAY;
+        for (TimeRange window : availableTimeRanges) {
+          long from = Math.max(start, dayStart + window.start());
+          long to = Math.min(end, dayStart + window.end());
+          if (from >= to) {
+            continue;
+          }
+          if (from == pieceEnd) {
+            pieceEnd = to;
+          } else {
+            addAvailableTimeRange(pieceStart, pieceEnd, meetingDurationMinutes);
+            pieceStart = from;
+            pieceEnd = to;
+          }
+        }
+      }
+      addAvailableTimeRange(pieceStart, pieceEnd, meetingDurationMinutes);
+    }
+
+    private void addAvailableTimeRange(long start, long end, long meetingDurationMinutes) {
+      if (end - start >= meetingDurationMinutes && end > start) {
+        freeTimeRanges.add(EpochTimeRange.fromStartEnd(start, end));
+      }
+    }
   }
 }
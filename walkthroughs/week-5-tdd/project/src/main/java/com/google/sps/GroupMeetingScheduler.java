@@ -0,0 +1,184 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Schedules a series of meetings that have to happen one after another on the same day, such as an
+ * interview loop with a different set of interviewers for each meeting. Instead of trying every
+ * combination of the meetings' free time ranges, the scheduler narrows each meeting down to the
+ * start times that still leave room for the meetings after it, working backwards from the last
+ * meeting, and then picks the earliest start time for each meeting going forwards.
+ */
+public final class GroupMeetingScheduler {
+  private final AttendeeCalendar calendar;
+  private final FindMeetingQuery query;
+
+  /** Creates a scheduler for meetings between people in {@code calendar}. */
+  public GroupMeetingScheduler(AttendeeCalendar calendar) {
+    this(calendar, new FindMeetingQuery());
+  }
+
+  /**
+   * Creates a scheduler for meetings between people in {@code calendar} that finds the times for
+   * each meeting with {@code query}, for example one that records metrics.
+   */
+  public GroupMeetingScheduler(AttendeeCalendar calendar, FindMeetingQuery query) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (query == null) {
+      throw new IllegalArgumentException("query cannot be null");
+    }
+
+    this.calendar = calendar;
+    this.query = query;
+  }
+
+  /**
+   * Finds the earliest times to hold {@code meetings} in the given order. Each meeting starts after
+   * the previous one ends, and at most {@code maxGapMinutes} later, so a gap of 0 places the
+   * meetings back to back. Each meeting is held at a time that {@link
+   * FindMeetingQuery#query(AttendeeCalendar, MeetingRequest)} would suggest for it, which means
+   * that the requests' availability windows can be used to keep the whole series within an
+   * afternoon.
+   *
+   * @return the time of each meeting, in the same order as {@code meetings}, or nothing if the
+   *     meetings can't all be held on the day
+   */
+  public Optional<List<TimeRange>> schedule(List<MeetingRequest> meetings, int maxGapMinutes) {
+    if (maxGapMinutes < 0) {
+      throw new IllegalArgumentException("maxGapMinutes cannot be negative");
+    }
+    // No gap can be longer than the day, and capping it keeps the arithmetic below from
+    // overflowing.
+    int maxGap = Math.min(maxGapMinutes, TimeRange.WHOLE_DAY.duration());
+
+    int meetingCount = meetings.size();
+    int[] durations = new int[meetingCount];
+    for (int i = 0; i < meetingCount; i++) {
+      long duration = meetings.get(i).getDuration();
+      if (duration > TimeRange.WHOLE_DAY.duration()) {
+        return Optional.empty();
+      }
+      durations[i] = (int) Math.max(0, duration);
+    }
+
+    // possibleStarts[i] holds the times meeting i can start at such that every meeting after it can
+    // still be held. Each time range [x, y) in it stands for the start times x to y - 1.
+    List<List<TimeRange>> possibleStarts = new ArrayList<>(Collections.nCopies(meetingCount, null));
+    for (int i = meetingCount - 1; i >= 0; i--) {
+      List<TimeRange> starts = getStartTimes(query.query(calendar, meetings.get(i)), durations[i]);
+      if (i + 1 < meetingCount) {
+        starts =
+            intersect(
+                starts, getStartTimesLeadingTo(possibleStarts.get(i + 1), durations[i], maxGap));
+      }
+
+      if (starts.isEmpty()) {
+        // The meetings before this one can't help, so there is no need to look at them.
+        return Optional.empty();
+      }
+      possibleStarts.set(i, starts);
+    }
+
+    // Every start time left leads to a full schedule, so picking the earliest one at each step
+    // never runs into a dead end.
+    List<TimeRange> meetingTimes = new ArrayList<>(meetingCount);
+    int earliestStart = TimeRange.START_OF_DAY;
+    for (int i = 0; i < meetingCount; i++) {
+      int start = getEarliestStartTime(possibleStarts.get(i), earliestStart);
+      meetingTimes.add(TimeRange.fromStartDuration(start, durations[i]));
+      earliestStart = start + durations[i];
+    }
+    return Optional.of(meetingTimes);
+  }
+
+  /**
+   * Returns the times a meeting can start at so that it fits inside one of the free time ranges.
+   */
+  private static List<TimeRange> getStartTimes(Collection<TimeRange> freeTimeRanges, int duration) {
+    List<TimeRange> starts = new ArrayList<TimeRange>();
+    for (TimeRange freeTimeRange : freeTimeRanges) {
+      if (freeTimeRange.duration() >= duration) {
+        starts.add(
+            TimeRange.fromStartEnd(
+                freeTimeRange.start(), freeTimeRange.end() - duration, /* inclusive= */ true));
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * Returns the times a meeting of {@code duration} can start at so that the next meeting can start
+   * at one of {@code nextStarts}, no more than {@code maxGap} minutes after this one ends.
+   */
+  private static List<TimeRange> getStartTimesLeadingTo(
+      List<TimeRange> nextStarts, int duration, int maxGap) {
+    List<TimeRange> starts = new ArrayList<TimeRange>(nextStarts.size());
+    for (TimeRange nextStart : nextStarts) {
+      int start = Math.max(TimeRange.START_OF_DAY, nextStart.start() - duration - maxGap);
+      int end = nextStart.end() - duration;
+      if (start < end) {
+        starts.add(TimeRange.fromStartEnd(start, end, /* inclusive= */ false));
+      }
+    }
+    // Widening each time range by the gap can make neighbouring ones overlap.
+    return TimeRanges.merge(starts);
+  }
+
+  /** Returns the times that are in both lists, each sorted by start with no overlaps. */
+  private static List<TimeRange> intersect(List<TimeRange> a, List<TimeRange> b) {
+    List<TimeRange> intersection = new ArrayList<TimeRange>();
+    int aIndex = 0;
+    int bIndex = 0;
+    while (aIndex < a.size() && bIndex < b.size()) {
+      TimeRange aRange = a.get(aIndex);
+      TimeRange bRange = b.get(bIndex);
+      int start = Math.max(aRange.start(), bRange.start());
+      int end = Math.min(aRange.end(), bRange.end());
+      if (start < end) {
+        intersection.add(TimeRange.fromStartEnd(start, end, /* inclusive= */ false));
+      }
+
+      // Whichever time range ends first can't overlap anything else in the other list.
+      if (aRange.end() < bRange.end()) {
+        aIndex++;
+      } else {
+        bIndex++;
+      }
+    }
+    return intersection;
+  }
+
+  /**
+   * Returns the earliest of {@code starts} that is no earlier than {@code earliestStart}. The
+   * backwards pass guarantees that there is one within the allowed gap.
+   */
+  private static int getEarliestStartTime(List<TimeRange> starts, int earliestStart) {
+    for (TimeRange start : starts) {
+      if (start.end() > earliestStart) {
+        return Math.max(start.start(), earliestStart);
+      }
+    }
+    throw new IllegalStateException("No start time left after " + earliestStart);
+  }
+}
@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A growable list of half-open intervals stored as primitive start and end pairs, for merging busy
+ * times without creating a {@code TimeRange} for every step. Each interval is packed into one long
+ * with the start in the high bits, so sorting the longs sorts the intervals by start. Only the
+ * merged result is turned into {@code TimeRange}s. Not safe for use by multiple threads at once.
+ */
+final class IntervalBuffer {
+  // Buffers that grew past this many intervals are dropped after use instead of being kept around
+  // by their thread.
+  private static final int MAX_RETAINED_CAPACITY = 1 << 16;
+
+  private static final ThreadLocal<IntervalBuffer> BUFFERS =
+      ThreadLocal.withInitial(IntervalBuffer::new);
+
+  private long[] intervals = new long[16];
+  private int size = 0;
+
+  /**
+   * Returns an empty buffer that belongs to the calling thread. The buffer is handed out again by
+   * the next call from the same thread, so it must not be kept or passed to code that might use
+   * this method itself.
+   */
+  static IntervalBuffer forCurrentThread() {
+    IntervalBuffer buffer = BUFFERS.get();
+    if (buffer.intervals.length > MAX_RETAINED_CAPACITY) {
+      buffer.intervals = new long[16];
+    }
+    buffer.size = 0;
+    return buffer;
+  }
+
+  /** Adds the interval from {@code start} to {@code end}. Empty intervals are skipped. */
+  void add(int start, int end) {
+    if (end <= start) {
+      return;
+    }
+    if (size == intervals.length) {
+      intervals = Arrays.copyOf(intervals, size * 2);
+    }
+    intervals[size++] = ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  void add(TimeRange timeRange) {
+    add(timeRange.start(), timeRange.end());
+  }
+
+  void addAll(Collection<TimeRange> timeRanges) {
+    for (TimeRange timeRange : timeRanges) {
+      add(timeRange);
+    }
+  }
+
+  /** Returns the number of intervals in the buffer. */
+  int size() {
+    return size;
+  }
+
+  int start(int index) {
+    return (int) (intervals[index] >> 32);
+  }
+
+  int end(int index) {
+    return (int) intervals[index];
+  }
+
+  /**
+   * Sorts the intervals by start and merges the ones that overlap, in place. Intervals that only
+   * touch are kept apart, the same as {@link TimeRanges#merge(Collection)}.
+   */
+  void merge() {
+    if (size == 0) {
+      return;
+    }
+    Arrays.sort(intervals, 0, size);
+
+    int merged = 0;
+    int currStart = start(0);
+    int currEnd = end(0);
+    for (int i = 1; i < size; i++) {
+      int start = start(i);
+      int end = end(i);
+      if (start < currEnd) {
+        currEnd = Math.max(currEnd, end);
+      } else {
+        intervals[merged++] = ((long) currStart << 32) | (currEnd & 0xFFFFFFFFL);
+        currStart = start;
+        currEnd = end;
+      }
+    }
+    intervals[merged++] = ((long) currStart << 32) | (currEnd & 0xFFFFFFFFL);
+    size = merged;
+  }
+
+  /** Returns a new list with a {@code TimeRange} for each interval, in order. */
+  List<TimeRange> toTimeRanges() {
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>(size);
+    for (int i = 0; i < size; i++) {
+      timeRanges.add(TimeRange.fromStartEnd(start(i), end(i), /* inclusive= */ false));
+    }
+    return timeRanges;
+  }
+}
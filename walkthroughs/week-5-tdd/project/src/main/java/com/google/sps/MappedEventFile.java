@@ -0,0 +1,394 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A calendar backed by an event file that is mapped into memory instead of read onto the heap, so
+ * opening even a very large file only costs reading its attendee names. The file is written once by
+ * {@link #write(Path, Collection)} and holds its events column by column:
+ *
+ * <ul>
+ *   <li>a header with a magic number, the format version and the number of events, attendees and
+ *       attendee entries;
+ *   <li>the start and the duration of every event;
+ *   <li>for every event, the offset of its attendees in the attendee ID column, followed by that
+ *       column;
+ *   <li>for every attendee, the offset of their events in the event index column, followed by that
+ *       column, so that looking up someone's busy times only reads their own events;
+ *   <li>the attendee names in order of ID, each as a length and UTF-8 bytes.
+ * </ul>
+ *
+ * <p>Events added later go to an append log next to the file, which is replayed into memory when
+ * the file is opened. Each event in the log is a length followed by that many bytes, so a record
+ * cut short by a crash can be told apart from the complete ones before it. Lookups are safe from
+ * any thread; appends are synchronized.
+ */
+public final class MappedEventFile implements AttendeeCalendar, Closeable {
+  private static final int MAGIC = 0x53505345;
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_INTS = 5;
+
+  private final AttendeeDictionary dictionary = new AttendeeDictionary();
+  private final int eventCount;
+
+  // Views into the mapped file. Only absolute reads are used, which don't move the buffers'
+  // positions, so the views can be shared by all threads.
+  private final IntBuffer starts;
+  private final IntBuffer durations;
+  private final IntBuffer attendeeOffsets;
+  private final IntBuffer attendeeIds;
+  private final IntBuffer eventOffsetsByAttendee;
+  private final IntBuffer eventsByAttendee;
+
+  // The events appended since the file was written, and the log that keeps them. The store is
+  // only read or written while holding the lock.
+  private final EventStore appendedEvents = new EventStore();
+  private final OutputStream log;
+
+  // The number of events in the store, which lookups read without taking the lock so that files
+  // with nothing appended never make readers wait for each other.
+  private volatile int appendedEventCount = 0;
+
+  private MappedEventFile(ByteBuffer buffer, Path logFile) throws IOException {
+    IntBuffer header = buffer.asIntBuffer();
+    if (header.remaining() < HEADER_INTS || header.get(0) != MAGIC) {
+      throw new IOException("Not an event file");
+    }
+    if (header.get(1) != FORMAT_VERSION) {
+      throw new IOException("Unsupported event file version " + header.get(1));
+    }
+    eventCount = header.get(2);
+    int nameCount = header.get(3);
+    int entryCount = header.get(4);
+
+    int position = HEADER_INTS * Integer.BYTES;
+    starts = intSection(buffer, position, eventCount);
+    position += eventCount * Integer.BYTES;
+    durations = intSection(buffer, position, eventCount);
+    position += eventCount * Integer.BYTES;
+    attendeeOffsets = intSection(buffer, position, eventCount + 1);
+    position += (eventCount + 1) * Integer.BYTES;
+    attendeeIds = intSection(buffer, position, entryCount);
+    position += entryCount * Integer.BYTES;
+    eventOffsetsByAttendee = intSection(buffer, position, nameCount + 1);
+    position += (nameCount + 1) * Integer.BYTES;
+    eventsByAttendee = intSection(buffer, position, entryCount);
+    position += entryCount * Integer.BYTES;
+
+    ByteBuffer names = buffer.duplicate();
+    names.position(position);
+    for (int id = 0; id < nameCount; id++) {
+      byte[] name = new byte[names.getInt()];
+      names.get(name);
+      dictionary.idOf(new String(name, StandardCharsets.UTF_8));
+    }
+
+    if (Files.exists(logFile)) {
+      replay(logFile);
+    }
+    log = Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+  }
+
+  /**
+   * Maps the event file at {@code file} into memory and replays its append log, which is kept in
+   * the same directory with {@code .log} added to the file name.
+   *
+   * @throws IOException if the file can't be read or wasn't written by {@link #write(Path,
+   *     Collection)}
+   */
+  public static MappedEventFile open(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        throw new IOException("Event files larger than 2 GB can't be mapped in one piece");
+      }
+      // The mapping stays valid after the channel is closed.
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return new MappedEventFile(buffer, getLogFile(file));
+    }
+  }
+
+  /**
+   * Writes {@code events} to a new event file at {@code file}, replacing any file and append log
+   * already there. Event titles aren't kept, since scheduling doesn't need them. The columns only
+   * hold hard blocks of busy time, so every event must be {@link Event.BusyType#BUSY}; softer
+   * events can only be kept in the append log, which stores their type.
+   *
+   * @throws IllegalArgumentException if an event isn't {@code BUSY}, in which case nothing is
+   *     written
+   */
+  public static void write(Path file, Collection<Event> events) throws IOException {
+    for (Event event : events) {
+      if (event.getBusyType() != Event.BusyType.BUSY) {
+        throw new IllegalArgumentException(
+            "event files only hold BUSY events, but got " + event.getBusyType());
+      }
+    }
+
+    AttendeeDictionary dictionary = new AttendeeDictionary();
+    int[] attendeeOffsets = new int[events.size() + 1];
+    int entryCount = 0;
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        dictionary.idOf(attendee);
+      }
+      entryCount += event.getAttendees().size();
+    }
+
+    int nameCount = dictionary.size();
+    int[] attendeeIds = new int[entryCount];
+    int[] eventCountsByAttendee = new int[nameCount];
+    int eventIndex = 0;
+    int entry = 0;
+    for (Event event : events) {
+      attendeeOffsets[eventIndex++] = entry;
+      for (String attendee : event.getAttendees()) {
+        int id = dictionary.find(attendee);
+        attendeeIds[entry++] = id;
+        eventCountsByAttendee[id]++;
+      }
+    }
+    attendeeOffsets[eventIndex] = entry;
+
+    // Lays out each attendee's events one after the other, like a counting sort by attendee.
+    int[] eventOffsetsByAttendee = new int[nameCount + 1];
+    for (int id = 0; id < nameCount; id++) {
+      eventOffsetsByAttendee[id + 1] = eventOffsetsByAttendee[id] + eventCountsByAttendee[id];
+    }
+    int[] nextEventByAttendee = Arrays.copyOf(eventOffsetsByAttendee, nameCount);
+    int[] eventsByAttendee = new int[entryCount];
+    for (eventIndex = 0; eventIndex < events.size(); eventIndex++) {
+      for (entry = attendeeOffsets[eventIndex]; entry < attendeeOffsets[eventIndex + 1]; entry++) {
+        eventsByAttendee[nextEventByAttendee[attendeeIds[entry]]++] = eventIndex;
+      }
+    }
+
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(events.size());
+      out.writeInt(nameCount);
+      out.writeInt(entryCount);
+      for (Event event : events) {
+        out.writeInt(event.getWhen().start());
+      }
+      for (Event event : events) {
+        out.writeInt(event.getWhen().duration());
+      }
+      writeInts(out, attendeeOffsets);
+      writeInts(out, attendeeIds);
+      writeInts(out, eventOffsetsByAttendee);
+      writeInts(out, eventsByAttendee);
+      for (String name : dictionary.getNames()) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+      }
+    }
+    Files.deleteIfExists(getLogFile(file));
+  }
+
+  /**
+   * Adds an event to the append log and makes it visible to lookups right away. The log is flushed
+   * before this returns, but not forced to disk.
+   *
+   * @throws IOException if the event can't be written, in which case the log doesn't change; for
+   *     example if a name is longer than 65535 bytes in modified UTF-8
+   */
+  public synchronized void append(Event event) throws IOException {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    // Encodes the whole record before writing any of it, so that an event that can't be encoded
+    // leaves nothing behind in the log.
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream record = new DataOutputStream(bytes);
+    record.writeInt(0);
+    record.writeUTF(event.getTitle());
+    record.writeInt(event.getWhen().start());
+    record.writeInt(event.getWhen().duration());
+    record.writeInt(event.getAttendees().size());
+    for (String attendee : event.getAttendees()) {
+      record.writeUTF(attendee);
+    }
+    record.writeUTF(event.getBusyType().name());
+
+    byte[] frame = bytes.toByteArray();
+    ByteBuffer.wrap(frame).putInt(0, frame.length - Integer.BYTES);
+    log.write(frame);
+    log.flush();
+    appendedEvents.add(event);
+    appendedEventCount = appendedEvents.size();
+  }
+
+  /** Returns the number of events, both in the mapped file and in the append log. */
+  public int size() {
+    return eventCount + appendedEventCount;
+  }
+
+  /** Counts the events appended since the file was opened. */
+  @Override
+  public synchronized long getVersion() {
+    return appendedEvents.getVersion();
+  }
+
+  /**
+   * Hands the time and attendees of every event in the mapped file, but not the append log, to
+   * {@code sink}, for example to build an {@code AttendeeIndex.Builder}. The attendee list passed
+   * to {@code sink} is reused for the next event, so {@code sink} must copy anything it wants to
+   * keep.
+   */
+  public void forEachMappedEvent(BiConsumer<TimeRange, List<String>> sink) {
+    List<String> attendees = new ArrayList<>();
+    for (int event = 0; event < eventCount; event++) {
+      attendees.clear();
+      for (int entry = attendeeOffsets.get(event);
+          entry < attendeeOffsets.get(event + 1);
+          entry++) {
+        attendees.add(dictionary.nameOf(attendeeIds.get(entry)));
+      }
+      sink.accept(TimeRange.fromStartDuration(starts.get(event), durations.get(event)), attendees);
+    }
+  }
+
+  /**
+   * Returns every time range that any of {@code attendees} is busy during, merged. Only the events
+   * of the given attendees are read from the mapped file.
+   */
+  @Override
+  public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+    // Reads the starts and durations straight from the file into an IntervalBuffer.
+    IntervalBuffer buffer = IntervalBuffer.forCurrentThread();
+    for (int id : dictionary.findAll(attendees)) {
+      int end = eventOffsetsByAttendee.get(id + 1);
+      for (int entry = eventOffsetsByAttendee.get(id); entry < end; entry++) {
+        int event = eventsByAttendee.get(entry);
+        int start = starts.get(event);
+        buffer.add(start, start + durations.get(event));
+      }
+    }
+    buffer.merge();
+    List<TimeRange> mergedTimeRanges = buffer.toTimeRanges();
+
+    if (appendedEventCount == 0) {
+      return mergedTimeRanges;
+    }
+    synchronized (this) {
+      return TimeRanges.union(mergedTimeRanges, appendedEvents.getBusyTimeRanges(attendees));
+    }
+  }
+
+  /** Closes the append log. The mapped file stays readable until it is garbage collected. */
+  @Override
+  public synchronized void close() throws IOException {
+    log.close();
+  }
+
+  /**
+   * Reads the events appended to {@code logFile} back into memory. A record at the end of the log
+   * that was cut short, for example by a crash during {@link #append(Event)}, is dropped and
+   * truncated away, so that new records are appended after the last complete one.
+   *
+   * @throws IOException if a complete record can't be decoded
+   */
+  private void replay(Path logFile) throws IOException {
+    long completeLength = 0;
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+      while (true) {
+        byte[] record;
+        try {
+          int length = in.readInt();
+          if (length < 0) {
+            break;
+          }
+          record = new byte[length];
+          in.readFully(record);
+        } catch (EOFException e) {
+          // The end of the log, or a record cut short.
+          break;
+        }
+        appendedEvents.add(decode(record));
+        appendedEventCount = appendedEvents.size();
+        completeLength += Integer.BYTES + record.length;
+      }
+    }
+
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      if (channel.size() > completeLength) {
+        channel.truncate(completeLength);
+      }
+    }
+  }
+
+  /** Decodes an event written by {@link #append(Event)}, without its length. */
+  private static Event decode(byte[] record) throws IOException {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(record))) {
+      String title = in.readUTF();
+      TimeRange when = TimeRange.fromStartDuration(in.readInt(), in.readInt());
+      int attendeeCount = in.readInt();
+      List<String> attendees = new ArrayList<>(attendeeCount);
+      for (int i = 0; i < attendeeCount; i++) {
+        attendees.add(in.readUTF());
+      }
+      Event.BusyType busyType = Event.BusyType.valueOf(in.readUTF());
+      return new Event(title, when, attendees, busyType);
+    } catch (EOFException | IllegalArgumentException e) {
+      throw new IOException("Corrupt record in event log", e);
+    }
+  }
+
+  private static Path getLogFile(Path file) {
+    return file.resolveSibling(file.getFileName() + ".log");
+  }
+
+  /** Returns a view of {@code count} ints starting at byte {@code position} of {@code buffer}. */
+  private static IntBuffer intSection(ByteBuffer buffer, int position, int count) {
+    ByteBuffer section = buffer.duplicate();
+    section.position(position);
+    section.limit(position + count * Integer.BYTES);
+    return section.slice().asIntBuffer();
+  }
+
+  private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+}
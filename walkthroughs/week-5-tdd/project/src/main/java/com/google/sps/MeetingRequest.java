@@ -14,9 +14,13 @@
 
 package com.google.sps;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 
 public final class MeetingRequest {
   /////////////////////////////////////////////
@@ -36,6 +40,13 @@ public final class MeetingRequest {
   // The duration of the meeting in minutes.
   private final long duration;
 
+  // The times of day the meeting may be held in, such as working hours. Empty means any time.
+  private final List<TimeRange> availability = new ArrayList<>();
+
+  // The times of day each attendee can meet in, for attendees in other time zones or with their own
+  // working hours. Attendees that aren't in the map can meet at any time they aren't busy.
+  private final Map<String, List<TimeRange>> attendee_availability = new HashMap<>();
+
   public MeetingRequest(Collection<String> attendees, long duration) {
     this.duration = duration;
     this.attendees.addAll(attendees);
@@ -43,11 +54,18 @@ public final class MeetingRequest {
 
   /** Returns a read-only copy of the people who are required to attend this meeting. */
   public Collection<String> getAttendees() {
+    // Gson doesn't run field initializers, so fields missing from the JSON are null.
+    if (attendees == null) {
+      return Collections.emptySet();
+    }
     return Collections.unmodifiableCollection(attendees);
   }
 
   /** Returns a read-only copy of the people who are optional to attend this meeting. */
   public Collection<String> getOptionalAttendees() {
+    if (optional_attendees == null) {
+      return Collections.emptySet();
+    }
     return Collections.unmodifiableCollection(optional_attendees);
   }
 
@@ -58,6 +76,38 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Returns a read-only copy of the times of day the meeting may be held in. An empty list means
+   * that the meeting may be held at any time of day.
+   */
+  public List<TimeRange> getAvailability() {
+    if (availability == null) {
+      return Collections.emptyList();
+    }
+    return Collections.unmodifiableList(availability);
+  }
+
+  /** Allows the meeting to be held during {@code window}, along with any other windows added. */
+  public void addAvailability(TimeRange window) {
+    availability.add(window);
+  }
+
+  /**
+   * Returns a read-only copy of the times of day each attendee can meet in. Attendees that aren't
+   * in the map can meet at any time of day.
+   */
+  public Map<String, List<TimeRange>> getAttendeeAvailability() {
+    if (attendee_availability == null) {
+      return Collections.emptyMap();
+    }
+    return Collections.unmodifiableMap(attendee_availability);
+  }
+
+  /** Allows {@code attendee} to meet during {@code window}, along with any other windows added. */
+  public void addAttendeeAvailability(String attendee, TimeRange window) {
+    attendee_availability.computeIfAbsent(attendee, (key) -> new ArrayList<>()).add(window);
+  }
+
   /** Returns the duration of the meeting in minutes. */
   public long getDuration() {
     return duration;
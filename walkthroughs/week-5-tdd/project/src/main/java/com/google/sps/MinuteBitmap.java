@@ -0,0 +1,202 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A set of minutes in a single day stored as a fixed-size bitmap, one bit per minute. Bit {@code i}
+ * is set when minute {@code i} (counting from {@code TimeRange.START_OF_DAY}) is in the set. Since
+ * a day only has 1440 minutes, a whole day fits in 23 {@code long}s, which makes combining the
+ * calendars of many people a handful of word-wide operations instead of interval merging.
+ */
+public final class MinuteBitmap {
+  public static final int MINUTES_PER_DAY = TimeRange.WHOLE_DAY.duration();
+
+  private static final int BITS_PER_WORD = Long.SIZE;
+  private static final int WORD_COUNT = (MINUTES_PER_DAY + BITS_PER_WORD - 1) / BITS_PER_WORD;
+
+  // The bits of the last word that are past the end of the day. These are always kept clear.
+  private static final long LAST_WORD_MASK = -1L >>> (WORD_COUNT * BITS_PER_WORD - MINUTES_PER_DAY);
+
+  private final long[] words = new long[WORD_COUNT];
+
+  /** Creates an empty bitmap, where no minute is set. */
+  public MinuteBitmap() {}
+
+  /** Creates a bitmap with every minute covered by any of {@code timeRanges} set. */
+  public static MinuteBitmap fromTimeRanges(Collection<TimeRange> timeRanges) {
+    MinuteBitmap bitmap = new MinuteBitmap();
+    for (TimeRange timeRange : timeRanges) {
+      bitmap.set(timeRange);
+    }
+    return bitmap;
+  }
+
+  /** Returns whether {@code minute} is set. */
+  public boolean get(int minute) {
+    if (minute < 0 || minute >= MINUTES_PER_DAY) {
+      return false;
+    }
+    return (words[minute / BITS_PER_WORD] & (1L << minute)) != 0;
+  }
+
+  /**
+   * Sets every minute in {@code timeRange}. Parts of the range that fall outside of the day are
+   * ignored.
+   */
+  public MinuteBitmap set(TimeRange timeRange) {
+    int start = Math.max(timeRange.start(), 0);
+    int end = Math.min(timeRange.end(), MINUTES_PER_DAY);
+    if (start >= end) {
+      return this;
+    }
+
+    int startWord = start / BITS_PER_WORD;
+    int endWord = (end - 1) / BITS_PER_WORD;
+    // Shifts in Java only use the low 6 bits of the shift distance, so these masks select the
+    // bits from {@code start} up and from {@code end - 1} down within their words.
+    long startMask = -1L << start;
+    long endMask = -1L >>> -end;
+
+    if (startWord == endWord) {
+      words[startWord] |= startMask & endMask;
+      return this;
+    }
+
+    words[startWord] |= startMask;
+    Arrays.fill(words, startWord + 1, endWord, -1L);
+    words[endWord] |= endMask;
+    return this;
+  }
+
+  /** Sets every minute that is set in {@code other}. */
+  public MinuteBitmap or(MinuteBitmap other) {
+    for (int i = 0; i < WORD_COUNT; i++) {
+      words[i] |= other.words[i];
+    }
+    return this;
+  }
+
+  /** Clears every minute that is not set in {@code other}. */
+  public MinuteBitmap and(MinuteBitmap other) {
+    for (int i = 0; i < WORD_COUNT; i++) {
+      words[i] &= other.words[i];
+    }
+    return this;
+  }
+
+  /** Flips every minute of the day, so that set minutes become clear and the other way round. */
+  public MinuteBitmap not() {
+    for (int i = 0; i < WORD_COUNT; i++) {
+      words[i] = ~words[i];
+    }
+    words[WORD_COUNT - 1] &= LAST_WORD_MASK;
+    return this;
+  }
+
+  /** Clears every minute. */
+  public MinuteBitmap clear() {
+    Arrays.fill(words, 0L);
+    return this;
+  }
+
+  /** Returns a new bitmap with the same minutes set as this one. */
+  public MinuteBitmap copy() {
+    return new MinuteBitmap().or(this);
+  }
+
+  /** Returns whether no minute is set. */
+  public boolean isEmpty() {
+    for (long word : words) {
+      if (word != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Finds every run of clear minutes that is at least {@code minDuration} minutes long. A run that
+   * reaches the end of the day is measured up to {@code TimeRange.END_OF_DAY} and is returned with
+   * {@code TimeRange.END_OF_DAY} included, the same way {@code FindMeetingQuery} reports free time
+   * at the end of the day.
+   */
+  public List<TimeRange> findClearRuns(long minDuration) {
+    List<TimeRange> runs = new ArrayList<>();
+
+    int runStart = nextClearMinute(0);
+    while (runStart < MINUTES_PER_DAY) {
+      int runEnd = nextSetMinute(runStart);
+
+      if (runEnd == MINUTES_PER_DAY) {
+        if (TimeRange.END_OF_DAY - runStart >= minDuration) {
+          runs.add(TimeRange.fromStartEnd(runStart, TimeRange.END_OF_DAY, /* inclusive= */ true));
+        }
+        break;
+      }
+
+      if (runEnd - runStart >= minDuration) {
+        runs.add(TimeRange.fromStartEnd(runStart, runEnd, /* inclusive= */ false));
+      }
+      runStart = nextClearMinute(runEnd);
+    }
+
+    return runs;
+  }
+
+  /** Returns the first set minute at or after {@code from}, or the end of the day if none is. */
+  private int nextSetMinute(int from) {
+    int wordIndex = from / BITS_PER_WORD;
+    long word = words[wordIndex] & (-1L << from);
+
+    while (word == 0) {
+      wordIndex++;
+      if (wordIndex == WORD_COUNT) {
+        return MINUTES_PER_DAY;
+      }
+      word = words[wordIndex];
+    }
+    return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+  }
+
+  /** Returns the first clear minute at or after {@code from}, or the end of the day if none is. */
+  private int nextClearMinute(int from) {
+    int wordIndex = from / BITS_PER_WORD;
+    long word = ~words[wordIndex] & (-1L << from);
+
+    while (word == 0) {
+      wordIndex++;
+      if (wordIndex == WORD_COUNT) {
+        return MINUTES_PER_DAY;
+      }
+      word = ~words[wordIndex];
+    }
+    return Math.min(wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word), MINUTES_PER_DAY);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof MinuteBitmap && Arrays.equals(words, ((MinuteBitmap) other).words);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(words);
+  }
+}
@@ -0,0 +1,116 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * An {@code AttendeeCalendar} that looks up the busy times of large groups in parallel. The group
+ * is split in halves until each part is small enough, every part is looked up in the wrapped
+ * calendar on a {@code ForkJoinPool}, and the merged results of the parts are combined pairwise.
+ * Groups no bigger than the threshold are looked up directly, so small queries don't pay for the
+ * forking. The wrapped calendar must be safe to read from several threads at once.
+ */
+public final class ParallelAttendeeCalendar implements AttendeeCalendar {
+  /** The default largest group that is looked up in one piece. */
+  public static final int DEFAULT_THRESHOLD = 256;
+
+  private final AttendeeCalendar calendar;
+  private final ForkJoinPool pool;
+  private final int threshold;
+
+  /** Wraps {@code calendar}, using the common pool and the default threshold. */
+  public ParallelAttendeeCalendar(AttendeeCalendar calendar) {
+    this(calendar, ForkJoinPool.commonPool(), DEFAULT_THRESHOLD);
+  }
+
+  /**
+   * Wraps {@code calendar}.
+   *
+   * @param pool The pool to look up the parts of large groups on.
+   * @param threshold The largest group that is looked up in one piece. Bigger groups are split into
+   *     parts no bigger than this.
+   */
+  public ParallelAttendeeCalendar(AttendeeCalendar calendar, ForkJoinPool pool, int threshold) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    if (pool == null) {
+      throw new IllegalArgumentException("pool cannot be null");
+    }
+
+    if (threshold < 1) {
+      throw new IllegalArgumentException("threshold must be positive");
+    }
+
+    this.calendar = calendar;
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+    if (attendees.size() <= threshold) {
+      return calendar.getBusyTimeRanges(attendees);
+    }
+    List<String> distinctAttendees = new ArrayList<>(new LinkedHashSet<>(attendees));
+    if (distinctAttendees.size() <= threshold) {
+      return calendar.getBusyTimeRanges(distinctAttendees);
+    }
+    return pool.invoke(new BusyTimeRangesTask(distinctAttendees));
+  }
+
+  @Override
+  public long getVersion() {
+    return calendar.getVersion();
+  }
+
+  @Override
+  public AttendeeCalendar getSnapshot() {
+    AttendeeCalendar snapshot = calendar.getSnapshot();
+    return snapshot == calendar ? this : new ParallelAttendeeCalendar(snapshot, pool, threshold);
+  }
+
+  /** Looks up the busy times of a part of the group, splitting it further if it is too big. */
+  private final class BusyTimeRangesTask extends RecursiveTask<List<TimeRange>> {
+    private final List<String> attendees;
+
+    BusyTimeRangesTask(List<String> attendees) {
+      this.attendees = attendees;
+    }
+
+    @Override
+    protected List<TimeRange> compute() {
+      if (attendees.size() <= threshold) {
+        return calendar.getBusyTimeRanges(attendees);
+      }
+
+      int middle = attendees.size() / 2;
+      BusyTimeRangesTask left = new BusyTimeRangesTask(attendees.subList(0, middle));
+      BusyTimeRangesTask right =
+          new BusyTimeRangesTask(attendees.subList(middle, attendees.size()));
+
+      left.fork();
+      List<TimeRange> rightTimeRanges = right.compute();
+      return TimeRanges.union(left.join(), rightTimeRanges);
+    }
+  }
+}
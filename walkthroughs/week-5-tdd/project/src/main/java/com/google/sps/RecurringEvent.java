@@ -0,0 +1,198 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * An event that repeats every day or every week at the same time of day, such as a weekly team
+ * meeting. Occurrences are only created one at a time, while iterating over {@link
+ * #occurrences(EpochTimeRange)}, so a meeting that repeats for years costs no more memory than a
+ * single event. Days are counted from the same day zero as {@code EpochTimeRange}. Recurring events
+ * are considered read-only.
+ */
+public final class RecurringEvent {
+  /** How often an event repeats. */
+  public enum Frequency {
+    DAILY(1),
+    WEEKLY(7);
+
+    private final int days;
+
+    Frequency(int days) {
+      this.days = days;
+    }
+
+    /** Returns the number of days between two occurrences. */
+    public int days() {
+      return days;
+    }
+  }
+
+  private final String title;
+  private final TimeRange when;
+  private final ImmutableSet<String> attendees;
+  private final Frequency frequency;
+  private final long firstDay;
+  private final long lastDay;
+  private final ImmutableSet<Long> skippedDays;
+
+  private RecurringEvent(Builder builder) {
+    this.title = builder.title;
+    this.when = builder.when;
+    this.attendees = ImmutableSet.copyOf(builder.attendees);
+    this.frequency = builder.frequency;
+    this.firstDay = builder.firstDay;
+    this.lastDay = builder.lastDay;
+    this.skippedDays = ImmutableSet.copyOf(builder.skippedDays);
+  }
+
+  /** Returns the human-readable name for this event. */
+  public String getTitle() {
+    return title;
+  }
+
+  /** Returns the time of day that every occurrence takes place at. */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /** Returns a read-only set of required attendees for this event. */
+  public Set<String> getAttendees() {
+    return attendees;
+  }
+
+  /** Returns how often this event repeats. */
+  public Frequency getFrequency() {
+    return frequency;
+  }
+
+  /**
+   * Returns the occurrences of this event that overlap {@code horizon}, sorted by start time. Each
+   * occurrence is created as the iterator reaches it, and days before the horizon are skipped with
+   * arithmetic rather than by stepping through them.
+   */
+  public Iterator<EpochEvent> occurrences(EpochTimeRange horizon) {
+    // An occurrence never leaves its own day, so the first one that can overlap the horizon is on
+    // the day the horizon starts, or the next day that this event repeats on.
+    long day = Math.max(firstDay, Math.floorDiv(horizon.start(), EpochTimeRange.MINUTES_PER_DAY));
+    long offset = Math.floorMod(day - firstDay, (long) frequency.days());
+    long startDay = offset == 0 ? day : day + frequency.days() - offset;
+
+    return new Iterator<EpochEvent>() {
+      private long nextDay = startDay;
+      private EpochEvent next = findNext();
+
+      @Override
+      public boolean hasNext() {
+        return next != null;
+      }
+
+      @Override
+      public EpochEvent next() {
+        if (next == null) {
+          throw new NoSuchElementException();
+        }
+        EpochEvent occurrence = next;
+        next = findNext();
+        return occurrence;
+      }
+
+      private EpochEvent findNext() {
+        for (; nextDay <= lastDay; nextDay += frequency.days()) {
+          EpochTimeRange occurrence = EpochTimeRange.onDay(nextDay, when);
+          if (occurrence.start() >= horizon.end()) {
+            return null;
+          }
+          if (!skippedDays.contains(nextDay) && occurrence.overlaps(horizon)) {
+            nextDay += frequency.days();
+            return new EpochEvent(title, occurrence, attendees);
+          }
+        }
+        return null;
+      }
+    };
+  }
+
+  /** Builds a recurring event. */
+  public static final class Builder {
+    private final String title;
+    private final TimeRange when;
+    private final Collection<String> attendees;
+    private final Frequency frequency;
+    private long firstDay = 0;
+    private long lastDay = Long.MAX_VALUE;
+    private final Set<Long> skippedDays = new HashSet<>();
+
+    /**
+     * Starts building an event that repeats forever from day zero.
+     *
+     * @param title The human-readable name for the event. Must be non-null.
+     * @param when The time of day when each occurrence takes place. Must be non-null.
+     * @param attendees The collection of people attending the event. Must be non-null.
+     * @param frequency How often the event repeats. Must be non-null.
+     */
+    public Builder(
+        String title, TimeRange when, Collection<String> attendees, Frequency frequency) {
+      if (title == null) {
+        throw new IllegalArgumentException("title cannot be null");
+      }
+
+      if (when == null) {
+        throw new IllegalArgumentException("when cannot be null");
+      }
+
+      if (attendees == null) {
+        throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
+      }
+
+      if (frequency == null) {
+        throw new IllegalArgumentException("frequency cannot be null");
+      }
+
+      this.title = title;
+      this.when = when;
+      this.attendees = attendees;
+      this.frequency = frequency;
+    }
+
+    /** Sets the day of the first occurrence. Later occurrences follow at the event's frequency. */
+    public Builder from(long day) {
+      firstDay = day;
+      return this;
+    }
+
+    /** Sets the last day that the event may take place on. */
+    public Builder until(long day) {
+      lastDay = day;
+      return this;
+    }
+
+    /** Cancels the occurrence on {@code day}, if there is one. */
+    public Builder except(long day) {
+      skippedDays.add(day);
+      return this;
+    }
+
+    public RecurringEvent build() {
+      return new RecurringEvent(this);
+    }
+  }
+}
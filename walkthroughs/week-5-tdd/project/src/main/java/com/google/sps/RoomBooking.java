@@ -0,0 +1,69 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/** A time that a meeting can be held at, along with a room that is free and big enough for it. */
+public final class RoomBooking {
+  /** Orders bookings by the start of their time, then by the capacity of their room. */
+  public static final Comparator<RoomBooking> ORDER_BY_START_THEN_CAPACITY =
+      Comparator.comparing(RoomBooking::getWhen, TimeRange.ORDER_BY_START)
+          .thenComparingInt((booking) -> booking.getRoom().getCapacity());
+
+  private final TimeRange when;
+  private final Room room;
+
+  public RoomBooking(TimeRange when, Room room) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (room == null) {
+      throw new IllegalArgumentException("room cannot be null");
+    }
+
+    this.when = when;
+    this.room = room;
+  }
+
+  /** Returns the time range that both the attendees and the room are free during. */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  public Room getRoom() {
+    return room;
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() ^ room.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RoomBooking && equals(this, (RoomBooking) other);
+  }
+
+  @Override
+  public String toString() {
+    return when + " in " + room;
+  }
+
+  private static boolean equals(RoomBooking a, RoomBooking b) {
+    return a.when.equals(b.when) && a.room.equals(b.room);
+  }
+}
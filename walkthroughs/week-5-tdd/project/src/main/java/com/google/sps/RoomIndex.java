@@ -0,0 +1,71 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The rooms that meetings can be held in, sorted by capacity so that the rooms big enough for a
+ * meeting can be found with a binary search. Room busy times are looked up by room name in a
+ * calendar, which may be the same calendar that holds people's events. Safe for use by multiple
+ * threads at once if the calendar is.
+ */
+public final class RoomIndex {
+  private final List<Room> roomsByCapacity;
+  private final int[] capacities;
+  private final AttendeeCalendar calendar;
+
+  /**
+   * Creates an index of {@code rooms}.
+   *
+   * @param calendar the calendar that rooms are booked in, with each room listed by name
+   */
+  public RoomIndex(Collection<Room> rooms, AttendeeCalendar calendar) {
+    if (calendar == null) {
+      throw new IllegalArgumentException("calendar cannot be null");
+    }
+
+    List<Room> sortedRooms = new ArrayList<>(rooms);
+    sortedRooms.sort((a, b) -> Integer.compare(a.getCapacity(), b.getCapacity()));
+    this.roomsByCapacity = Collections.unmodifiableList(sortedRooms);
+    this.capacities = sortedRooms.stream().mapToInt(Room::getCapacity).toArray();
+    this.calendar = calendar;
+  }
+
+  /** Returns a read-only list of every room that can hold {@code people}, smallest first. */
+  public List<Room> getRoomsFor(int people) {
+    // Finds the first room with a capacity of at least people. Arrays.binarySearch may land on any
+    // of several rooms with the same capacity, so search by hand for the leftmost one.
+    int low = 0;
+    int high = capacities.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (capacities[middle] < people) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return roomsByCapacity.subList(low, roomsByCapacity.size());
+  }
+
+  /** Returns the merged busy times of {@code room}. */
+  public List<TimeRange> getBusyTimeRanges(Room room) {
+    return calendar.getBusyTimeRanges(Collections.singleton(room.getName()));
+  }
+}
@@ -0,0 +1,175 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts what {@code FindMeetingQuery} does and times each phase of a query, so that slow or
+ * unusually large requests can be spotted. Phase timings are kept as histograms with one bucket per
+ * power of two nanoseconds, which is coarse but costs a single atomic increment per phase. Safe for
+ * use by multiple threads at once.
+ */
+public final class SchedulerMetrics {
+  /** The timed parts of a query. */
+  public enum Phase {
+    /**
+     * Looking for the events of the requested attendees among all events. Only timed when a query
+     * scans a collection of events rather than looking attendees up in a calendar.
+     */
+    FILTER_EVENTS,
+    /**
+     * Sorting and merging busy time ranges that were found by filtering events. Like {@link
+     * #FILTER_EVENTS}, only timed when a query scans a collection of events.
+     */
+    MERGE,
+    /** Getting the merged busy times of a group of attendees, including filtering and merging. */
+    LOOKUP_BUSY_TIMES,
+    /** Finding the gaps between busy times that are long enough for the meeting. */
+    FIND_FREE_TIME,
+    /** A whole query, from request to answer. */
+    QUERY
+  }
+
+  /** The things that are counted. */
+  public enum Counter {
+    /** Queries that were answered, including those answered from a cache. */
+    QUERIES,
+    /** Queries that found no time for the optional attendees and fell back to mandatory ones. */
+    FALLBACKS_TO_MANDATORY,
+    /** Events looked at by queries that scan a collection of events. */
+    EVENTS_SCANNED,
+    /** Scanned events that had at least one of the requested attendees. */
+    EVENTS_MATCHED,
+    /**
+     * Busy time ranges fed into merging, before overlapping ones were combined. Only counted when a
+     * query scans a collection of events, since calendars merge busy times on their own.
+     */
+    TIME_RANGES_MERGED,
+    FREE_TIME_RANGES_FOUND
+  }
+
+  private static final int BUCKET_COUNT = 64;
+
+  private static final SchedulerMetrics DISABLED = new SchedulerMetrics(false);
+
+  private final boolean enabled;
+  private final AtomicLongArray histograms =
+      new AtomicLongArray(Phase.values().length * BUCKET_COUNT);
+  private final AtomicLongArray totalNanos = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray maxNanos = new AtomicLongArray(Phase.values().length);
+  private final AtomicLongArray counters = new AtomicLongArray(Counter.values().length);
+
+  /** Creates metrics that start out at zero. */
+  public SchedulerMetrics() {
+    this(true);
+  }
+
+  private SchedulerMetrics(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /** Returns metrics that ignore everything, for queries that don't want to pay for metrics. */
+  public static SchedulerMetrics disabled() {
+    return DISABLED;
+  }
+
+  /** Returns whether anything is being recorded. */
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** Returns the time to pass to {@link #recordPhase} once the phase is over. */
+  long startTimer() {
+    return enabled ? System.nanoTime() : 0;
+  }
+
+  /** Records that {@code phase} took from {@code startNanos}, as returned by startTimer, to now. */
+  void recordPhase(Phase phase, long startNanos) {
+    if (!enabled) {
+      return;
+    }
+    long elapsedNanos = Math.max(0, System.nanoTime() - startNanos);
+
+    // Bucket i holds the durations from 2^(i - 1) up to 2^i nanoseconds, and bucket 0 holds zero.
+    int bucket = Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(elapsedNanos));
+    histograms.incrementAndGet(phase.ordinal() * BUCKET_COUNT + bucket);
+    totalNanos.addAndGet(phase.ordinal(), elapsedNanos);
+    maxNanos.accumulateAndGet(phase.ordinal(), elapsedNanos, Math::max);
+  }
+
+  /** Adds {@code delta} to {@code counter}. */
+  void add(Counter counter, long delta) {
+    if (enabled) {
+      counters.addAndGet(counter.ordinal(), delta);
+    }
+  }
+
+  /** Returns the current value of {@code counter}. */
+  public long getCount(Counter counter) {
+    return counters.get(counter.ordinal());
+  }
+
+  /** Returns how many times {@code phase} has been timed. */
+  public long getCount(Phase phase) {
+    long count = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      count += histograms.get(phase.ordinal() * BUCKET_COUNT + bucket);
+    }
+    return count;
+  }
+
+  /** Returns the time spent in {@code phase} altogether. */
+  public long getTotalNanos(Phase phase) {
+    return totalNanos.get(phase.ordinal());
+  }
+
+  /** Returns the longest time that {@code phase} has taken. */
+  public long getMaxNanos(Phase phase) {
+    return maxNanos.get(phase.ordinal());
+  }
+
+  /**
+   * Returns a time that at least {@code percentile} percent of the timings of {@code phase} were no
+   * longer than. Since timings are only kept to the nearest power of two, this may be up to twice
+   * the real percentile. Returns 0 if {@code phase} hasn't been timed.
+   */
+  public long getPercentileNanos(Phase phase, double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    // Reads the buckets once so that the counts can't change between the two passes.
+    long[] buckets = new long[BUCKET_COUNT];
+    long count = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      buckets[bucket] = histograms.get(phase.ordinal() * BUCKET_COUNT + bucket);
+      count += buckets[bucket];
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    long target = (long) Math.ceil(count * percentile / 100);
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += buckets[bucket];
+      if (seen >= target && seen > 0) {
+        return bucket == 0 ? 0 : 1L << Math.min(bucket, Long.SIZE - 2);
+      }
+    }
+    return Long.MAX_VALUE;
+  }
+}
@@ -0,0 +1,70 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * A range of possible meeting times along with the cost of holding the meeting at any of them, as
+ * found by {@link FindMeetingQuery#queryWithConflictCosts}. A cost of zero means that nobody has to
+ * skip anything.
+ */
+public final class ScoredTimeRange {
+  /** Orders scored time ranges from cheapest to most expensive, then by start time. */
+  public static final Comparator<ScoredTimeRange> ORDER_BY_COST =
+      Comparator.comparingLong(ScoredTimeRange::getCost)
+          .thenComparing(ScoredTimeRange::getWhen, TimeRange.ORDER_BY_START);
+
+  private final TimeRange when;
+  private final long cost;
+
+  public ScoredTimeRange(TimeRange when, long cost) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    this.when = when;
+    this.cost = cost;
+  }
+
+  /** Returns the time range that a meeting can be held anywhere within. */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /** Returns the total cost of the conflicts that a meeting within this time range runs into. */
+  public long getCost() {
+    return cost;
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() ^ Long.hashCode(cost);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof ScoredTimeRange && equals(this, (ScoredTimeRange) other);
+  }
+
+  @Override
+  public String toString() {
+    return when + " costs " + cost;
+  }
+
+  private static boolean equals(ScoredTimeRange a, ScoredTimeRange b) {
+    return a.when.equals(b.when) && a.cost == b.cost;
+  }
+}
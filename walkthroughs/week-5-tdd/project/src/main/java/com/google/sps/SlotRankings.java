@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Ways to rank free time ranges for {@code FindMeetingQuery.queryBest}. Each ranking orders time
+ * ranges from best to worst.
+ */
+public final class SlotRankings {
+  /** Ranks earlier time ranges first. */
+  public static Comparator<TimeRange> earliest() {
+    return TimeRange.ORDER_BY_START;
+  }
+
+  /**
+   * Ranks time ranges by how far a meeting of {@code duration} minutes inside them would have to
+   * start from {@code preferredStart}. Time ranges where the meeting could start exactly at the
+   * preferred time come first.
+   */
+  public static Comparator<TimeRange> closestTo(int preferredStart, long duration) {
+    return Comparator.comparingLong(
+        (timeRange) -> {
+          long latestStart = timeRange.end() - duration;
+          if (preferredStart < timeRange.start()) {
+            return timeRange.start() - preferredStart;
+          }
+          return Math.max(0, preferredStart - latestStart);
+        });
+  }
+
+  /**
+   * Ranks time ranges by how many of {@code attendees} are busy at some point during them, fewest
+   * first. {@code FindMeetingQuery.queryBest} splits free time wherever one of its optional
+   * attendees becomes busy or free, so a partly busy free time range doesn't hide a slot inside it
+   * that works for everyone. Looks up everyone's busy times once, when the ranking is created.
+   */
+  public static Comparator<TimeRange> fewestConflicts(
+      AttendeeCalendar calendar, Collection<String> attendees) {
+    List<List<TimeRange>> busyTimeRangesByAttendee = new ArrayList<>();
+    for (String attendee : new HashSet<>(attendees)) {
+      busyTimeRangesByAttendee.add(calendar.getBusyTimeRanges(Collections.singleton(attendee)));
+    }
+
+    return Comparator.comparingInt(
+        (timeRange) -> {
+          int conflicts = 0;
+          for (List<TimeRange> busyTimeRanges : busyTimeRangesByAttendee) {
+            if (overlapsAny(busyTimeRanges, timeRange)) {
+              conflicts++;
+            }
+          }
+          return conflicts;
+        });
+  }
+
+  /**
+   * Checks if {@code timeRange} overlaps any of {@code busyTimeRanges}, which must be sorted by
+   * start time and not overlap each other.
+   */
+  private static boolean overlapsAny(List<TimeRange> busyTimeRanges, TimeRange timeRange) {
+    // Finds the last busy time range that starts before {@code timeRange} ends. Since the busy
+    // time ranges don't overlap, it is the only one that can reach into {@code timeRange}.
+    int low = 0;
+    int high = busyTimeRanges.size() - 1;
+    int last = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (busyTimeRanges.get(middle).start() < timeRange.end()) {
+        last = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return last >= 0 && busyTimeRanges.get(last).end() > timeRange.start();
+  }
+
+  private SlotRankings() {
+    // Disallow instances.
+  }
+}
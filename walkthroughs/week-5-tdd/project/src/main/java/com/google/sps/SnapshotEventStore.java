@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A collection of events that can change while it is being queried. Readers never wait: every
+ * lookup reads the current snapshot, an immutable {@code AttendeeIndex}, from a volatile field.
+ * Writers take turns, and each change publishes a new snapshot that only replaces the busy times of
+ * the changed event's attendees and shares everyone else's with the previous snapshot. Queries that
+ * look up busy times more than once should do so on {@link #getSnapshot()}, so that a concurrent
+ * change can't land between two lookups. Safe for use by multiple threads at once.
+ */
+public final class SnapshotEventStore implements AttendeeCalendar {
+  /** An index along with the number of changes it includes. */
+  private static final class Snapshot implements AttendeeCalendar {
+    private final AttendeeIndex index;
+    private final long version;
+
+    Snapshot(AttendeeIndex index, long version) {
+      this.index = index;
+      this.version = version;
+    }
+
+    @Override
+    public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+      return index.getBusyTimeRanges(attendees);
+    }
+
+    @Override
+    public long getVersion() {
+      return version;
+    }
+  }
+
+  // Keeps every attendee's merged busy times up to date for writers. Only used while holding the
+  // lock.
+  private final EventStore events;
+
+  private volatile Snapshot current;
+
+  /** Creates an empty store. */
+  public SnapshotEventStore() {
+    this(Collections.emptyList());
+  }
+
+  /** Creates a store holding {@code events}. */
+  public SnapshotEventStore(Collection<Event> events) {
+    this.events = new EventStore(events);
+    this.current = new Snapshot(new AttendeeIndex(events), /* version= */ 0);
+  }
+
+  /** Adds an event to the store. The same event may be added more than once. */
+  public synchronized void add(Event event) {
+    events.add(event);
+    publish(event.getAttendees());
+  }
+
+  /** Adds several events to the store as one change, so readers see all of them or none. */
+  public synchronized void addAll(Collection<Event> newEvents) {
+    Set<String> attendees = new HashSet<>();
+    for (Event event : newEvents) {
+      events.add(event);
+      attendees.addAll(event.getAttendees());
+    }
+    publish(attendees);
+  }
+
+  /**
+   * Removes one copy of an event from the store.
+   *
+   * @return whether the event was in the store
+   */
+  public synchronized boolean remove(Event event) {
+    if (!events.remove(event)) {
+      return false;
+    }
+    publish(event.getAttendees());
+    return true;
+  }
+
+  /** Returns the index that readers currently see. It never changes. */
+  public AttendeeIndex getIndex() {
+    return current.index;
+  }
+
+  @Override
+  public List<TimeRange> getBusyTimeRanges(Collection<String> attendees) {
+    return current.getBusyTimeRanges(attendees);
+  }
+
+  /** Counts the changes made to the store since it was created. */
+  @Override
+  public long getVersion() {
+    return current.version;
+  }
+
+  @Override
+  public AttendeeCalendar getSnapshot() {
+    return current;
+  }
+
+  /** Makes a new snapshot with the current busy times of {@code attendees} visible to readers. */
+  private void publish(Collection<String> attendees) {
+    Map<String, List<TimeRange>> busyTimeRangesByAttendee = new HashMap<>();
+    for (String attendee : attendees) {
+      busyTimeRangesByAttendee.put(attendee, events.getBusyTimeRanges(attendee));
+    }
+
+    Snapshot previous = current;
+    current =
+        new Snapshot(
+            previous.index.withBusyTimeRanges(busyTimeRangesByAttendee), previous.version + 1);
+  }
+}
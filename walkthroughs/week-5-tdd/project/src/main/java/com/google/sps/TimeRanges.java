@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/** Static helpers for working with lists of {@code TimeRange}s. */
+public final class TimeRanges {
+  /**
+   * Merges a list of time ranges into a list of non-overlapping time ranges sorted by start time.
+   * Sorts the time ranges once and then merges them in a single pass, so that the cost is O(n log
+   * n) in the number of time ranges. Both steps run in the calling thread's {@code IntervalBuffer}.
+   * Time ranges with no duration are dropped, since nobody is busy during them.
+   *
+   * @param timeRanges time ranges in any order; this list is not changed
+   * @return a new list of merged time ranges
+   */
+  public static List<TimeRange> merge(Collection<TimeRange> timeRanges) {
+    IntervalBuffer buffer = IntervalBuffer.forCurrentThread();
+    buffer.addAll(timeRanges);
+    buffer.merge();
+    return buffer.toTimeRanges();
+  }
+
+  /**
+   * Combines two lists of merged time ranges into one. Both lists must be sorted by start time with
+   * no two time ranges in the same list overlapping, as returned by {@link #merge(Collection)}.
+   * Since the lists are already sorted, this takes a single pass over both instead of sorting
+   * again.
+   *
+   * @return a new list of merged time ranges covering every time range in {@code a} and {@code b}
+   */
+  public static List<TimeRange> union(List<TimeRange> a, List<TimeRange> b) {
+    List<TimeRange> mergedTimeRanges = new ArrayList<TimeRange>(a.size() + b.size());
+    int aIndex = 0;
+    int bIndex = 0;
+
+    // The time range being built, kept as a start and an end so that growing it doesn't allocate.
+    // currTimeRange is the original time range while it hasn't grown, so that it can be reused.
+    TimeRange currTimeRange = null;
+    int currStart = 0;
+    int currEnd = 0;
+
+    while (aIndex < a.size() || bIndex < b.size()) {
+      TimeRange timeRange;
+      if (bIndex == b.size()
+          || (aIndex < a.size() && a.get(aIndex).start() <= b.get(bIndex).start())) {
+        timeRange = a.get(aIndex++);
+      } else {
+        timeRange = b.get(bIndex++);
+      }
+
+      if (currTimeRange != null && timeRange.start() < currEnd) {
+        if (timeRange.end() > currEnd) {
+          currEnd = timeRange.end();
+        }
+      } else {
+        if (currTimeRange != null) {
+          mergedTimeRanges.add(build(currTimeRange, currStart, currEnd));
+        }
+        currTimeRange = timeRange;
+        currStart = timeRange.start();
+        currEnd = timeRange.end();
+      }
+    }
+
+    if (currTimeRange != null) {
+      mergedTimeRanges.add(build(currTimeRange, currStart, currEnd));
+    }
+
+    return mergedTimeRanges;
+  }
+
+  /**
+   * Returns the parts of the day that {@code timeRanges} leave uncovered. The time ranges must be
+   * sorted by start time with no two of them overlapping, as returned by {@link
+   * #merge(Collection)}.
+   *
+   * @return a new list of merged time ranges, sorted by start time
+   */
+  public static List<TimeRange> complement(List<TimeRange> timeRanges) {
+    List<TimeRange> gaps = new ArrayList<TimeRange>(timeRanges.size() + 1);
+    int gapStart = TimeRange.START_OF_DAY;
+
+    for (TimeRange timeRange : timeRanges) {
+      if (timeRange.start() > gapStart) {
+        gaps.add(TimeRange.fromStartEnd(gapStart, timeRange.start(), /* inclusive= */ false));
+      }
+      gapStart = Math.max(gapStart, timeRange.end());
+    }
+
+    if (gapStart < TimeRange.WHOLE_DAY.end()) {
+      gaps.add(TimeRange.fromStartEnd(gapStart, TimeRange.WHOLE_DAY.end(), /* inclusive= */ false));
+    }
+    return gaps;
+  }
+
+  /**
+   * Returns {@code original} if it spans {@code start} to {@code end}, or else a new time range.
+   */
+  private static TimeRange build(TimeRange original, int start, int end) {
+    if (original.start() == start && original.end() == end) {
+      return original;
+    }
+    return TimeRange.fromStartEnd(start, end, /* inclusive= */ false);
+  }
+
+  private TimeRanges() {
+    // Disallow instances.
+  }
+}
@@ -0,0 +1,122 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * Reads an array of events in the JSON format that {@code GetEventsServlet} writes, one event at a
+ * time, without building {@code Event} objects or holding the whole array in memory.
+ */
+final class EventJsonReader {
+  /**
+   * Reads a JSON array of events from {@code reader} and hands the time and attendees of each one
+   * to {@code sink}. The attendee list passed to {@code sink} is reused for the next event, so
+   * {@code sink} must copy anything it wants to keep.
+   *
+   * @throws JsonParseException if an event is missing its time, or its time isn't a range of whole
+   *     minutes within the day
+   */
+  static void readEvents(JsonReader reader, BiConsumer<TimeRange, List<String>> sink)
+      throws IOException {
+    List<String> attendees = new ArrayList<>();
+
+    reader.beginArray();
+    while (reader.hasNext()) {
+      TimeRange when = null;
+      attendees.clear();
+
+      reader.beginObject();
+      while (reader.hasNext()) {
+        switch (reader.nextName()) {
+          case "when":
+            when = readTimeRange(reader);
+            break;
+          case "attendees":
+            reader.beginArray();
+            while (reader.hasNext()) {
+              attendees.add(reader.nextString());
+            }
+            reader.endArray();
+            break;
+          default:
+            // The title and anything else don't affect when people are busy.
+            reader.skipValue();
+        }
+      }
+      reader.endObject();
+
+      if (when == null) {
+        throw new JsonParseException("event is missing \"when\" at " + reader.getPath());
+      }
+      sink.accept(when, attendees);
+    }
+    reader.endArray();
+  }
+
+  /** Reads a time range written as an object with a "start" and a "duration". */
+  private static TimeRange readTimeRange(JsonReader reader) throws IOException {
+    int start = 0;
+    int duration = 0;
+
+    reader.beginObject();
+    while (reader.hasNext()) {
+      switch (reader.nextName()) {
+        case "start":
+          start = readMinutes(reader);
+          break;
+        case "duration":
+          duration = readMinutes(reader);
+          break;
+        default:
+          reader.skipValue();
+      }
+    }
+    reader.endObject();
+
+    if (start < TimeRange.START_OF_DAY
+        || duration < 0
+        || (long) start + duration > TimeRange.WHOLE_DAY.end()) {
+      throw new JsonParseException(
+          "time range must fall within the day, but starts at "
+              + start
+              + " and lasts "
+              + duration
+              + " minutes at "
+              + reader.getPath());
+    }
+    return TimeRange.fromStartDuration(start, duration);
+  }
+
+  /** Reads a whole number of minutes. */
+  private static int readMinutes(JsonReader reader) throws IOException {
+    String path = reader.getPath();
+    try {
+      return reader.nextInt();
+    } catch (NumberFormatException e) {
+      throw new JsonParseException("expected a whole number of minutes at " + path, e);
+    }
+  }
+
+  private EventJsonReader() {
+    // Disallow instances.
+  }
+}
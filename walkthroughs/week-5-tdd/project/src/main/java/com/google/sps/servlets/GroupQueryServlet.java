@@ -0,0 +1,72 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.sps.GroupMeetingScheduler;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Schedules a series of meetings one after another, such as an interview loop. The request body
+ * looks like {@code {"meetings": [...], "max_gap": 15}}, where the meetings are in the order they
+ * should happen and {@code max_gap} is the longest break allowed between two of them, in minutes.
+ * The response is an array with the time of each meeting, which is empty if they don't all fit.
+ */
+@WebServlet("/query/group")
+public class GroupQueryServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    GroupRequest groupRequest;
+    try {
+      groupRequest = gson.fromJson(request.getReader(), GroupRequest.class);
+    } catch (JsonParseException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Malformed JSON: " + e.getMessage());
+      return;
+    }
+    if (groupRequest == null || groupRequest.meetings == null || groupRequest.max_gap < 0) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Expected meetings and a non-negative max_gap.");
+      return;
+    }
+
+    GroupMeetingScheduler scheduler =
+        new GroupMeetingScheduler(
+            QueryServlet.CALENDAR.getSnapshot(), QueryServlet.FIND_MEETING_QUERY);
+    Optional<List<TimeRange>> meetingTimes =
+        scheduler.schedule(Arrays.asList(groupRequest.meetings), groupRequest.max_gap);
+
+    // Send the times back in the format the client asked for.
+    TimeRangeCodec.write(request, response, meetingTimes.orElse(Collections.emptyList()));
+  }
+
+  /** The body of a request, as parsed by Gson. */
+  private static final class GroupRequest {
+    private MeetingRequest[] meetings;
+    private int max_gap;
+  }
+}
@@ -15,9 +15,14 @@
 package com.google.sps.servlets;
 
 import com.google.gson.Gson;
+import com.google.sps.AttendeeCalendar;
+import com.google.sps.CachingMeetingQuery;
 import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.ParallelAttendeeCalendar;
+import com.google.sps.SchedulerMetrics;
+import com.google.sps.SnapshotEventStore;
 import com.google.sps.TimeRange;
 import java.io.IOException;
 import java.util.Arrays;
@@ -29,6 +34,27 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  // Holds the events as immutable snapshots, so that events can be changed while the server is
+  // running without ever making queries wait for the change.
+  static final SnapshotEventStore EVENT_STORE =
+      new SnapshotEventStore(Arrays.asList(Events.events));
+
+  // Looks up the busy times of very large groups, like all-hands meetings, in parallel. Shared
+  // with {@code BatchQueryServlet}.
+  static final AttendeeCalendar CALENDAR = new ParallelAttendeeCalendar(EVENT_STORE);
+
+  // Records where queries spend their time, for {@code StatsServlet} to report.
+  static final SchedulerMetrics METRICS = new SchedulerMetrics();
+
+  // Shared by every servlet that answers meeting requests, so that {@code StatsServlet} reports on
+  // all of them.
+  static final FindMeetingQuery FIND_MEETING_QUERY = new FindMeetingQuery(METRICS);
+
+  // Clients send the same request again and again while the user edits it, so remember the
+  // answers to recent requests.
+  static final CachingMeetingQuery CACHING_QUERY =
+      new CachingMeetingQuery(CALENDAR, /* maximumSize= */ 10_000, FIND_MEETING_QUERY);
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
@@ -37,15 +63,9 @@ public class QueryServlet extends HttpServlet {
     MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
 
     // Find the possible meeting times.
-    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
-
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    Collection<TimeRange> answer = CACHING_QUERY.query(meetingRequest);
 
-    // Send the JSON back as the response
-    response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    // Send the times back in the format the client asked for.
+    TimeRangeCodec.write(request, response, answer);
   }
 }
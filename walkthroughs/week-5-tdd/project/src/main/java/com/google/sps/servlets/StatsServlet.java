@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.common.cache.CacheStats;
+import com.google.gson.Gson;
+import com.google.sps.SchedulerMetrics;
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports the scheduler's metrics since the server started, as JSON: a count for each counter, the
+ * count, total, maximum and percentile latencies in nanoseconds of each query phase, and how often
+ * {@code QueryServlet}'s answer cache was hit. Leaves out what is only recorded when a query scans
+ * a collection of events, since the servlets look attendees up in {@code QueryServlet.CALENDAR} and
+ * those would always be zero.
+ */
+@WebServlet("/query/stats")
+public class StatsServlet extends HttpServlet {
+  private static final EnumSet<SchedulerMetrics.Counter> EVENT_SCAN_COUNTERS =
+      EnumSet.of(
+          SchedulerMetrics.Counter.EVENTS_SCANNED,
+          SchedulerMetrics.Counter.EVENTS_MATCHED,
+          SchedulerMetrics.Counter.TIME_RANGES_MERGED);
+  private static final EnumSet<SchedulerMetrics.Phase> EVENT_SCAN_PHASES =
+      EnumSet.of(SchedulerMetrics.Phase.FILTER_EVENTS, SchedulerMetrics.Phase.MERGE);
+
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    SchedulerMetrics metrics = QueryServlet.METRICS;
+
+    Map<String, Long> counters = new LinkedHashMap<>();
+    for (SchedulerMetrics.Counter counter : EnumSet.complementOf(EVENT_SCAN_COUNTERS)) {
+      counters.put(counter.name(), metrics.getCount(counter));
+    }
+
+    Map<String, Map<String, Long>> phases = new LinkedHashMap<>();
+    for (SchedulerMetrics.Phase phase : EnumSet.complementOf(EVENT_SCAN_PHASES)) {
+      Map<String, Long> phaseStats = new LinkedHashMap<>();
+      phaseStats.put("count", metrics.getCount(phase));
+      phaseStats.put("total_nanos", metrics.getTotalNanos(phase));
+      phaseStats.put("max_nanos", metrics.getMaxNanos(phase));
+      phaseStats.put("p50_nanos", metrics.getPercentileNanos(phase, 50));
+      phaseStats.put("p90_nanos", metrics.getPercentileNanos(phase, 90));
+      phaseStats.put("p99_nanos", metrics.getPercentileNanos(phase, 99));
+      phases.put(phase.name(), phaseStats);
+    }
+
+    CacheStats cacheStats = QueryServlet.CACHING_QUERY.getStats();
+    Map<String, Number> cache = new LinkedHashMap<>();
+    cache.put("hit_count", cacheStats.hitCount());
+    cache.put("miss_count", cacheStats.missCount());
+    cache.put("hit_rate", cacheStats.hitRate());
+    cache.put("eviction_count", cacheStats.evictionCount());
+
+    Map<String, Object> stats = new LinkedHashMap<>();
+    stats.put("counters", counters);
+    stats.put("phases", phases);
+    stats.put("cache", cache);
+
+    // Send the JSON back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(stats));
+  }
+}
@@ -0,0 +1,93 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.sps.AttendeeIndex;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Answers a meeting request against events sent along with it, instead of against the events the
+ * server knows about. The body is an object with a "request" field holding the meeting request and
+ * an "events" field holding the events, in the same format as {@code GetEventsServlet}'s response.
+ * The request must come before the events.
+ *
+ * <p>The events are read one at a time and only the busy times of the requested attendees are kept,
+ * so the size of the body doesn't limit how many events can be sent.
+ */
+@WebServlet("/query/stream")
+public class StreamingQueryServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+    MeetingRequest meetingRequest = null;
+    AttendeeIndex.Builder indexBuilder = null;
+
+    try (JsonReader reader = new JsonReader(request.getReader())) {
+      reader.beginObject();
+      while (reader.hasNext()) {
+        String name = reader.nextName();
+        if (name.equals("request")) {
+          meetingRequest = gson.fromJson(reader, MeetingRequest.class);
+          if (meetingRequest == null) {
+            break;
+          }
+
+          List<String> attendees = new ArrayList<>(meetingRequest.getAttendees());
+          attendees.addAll(meetingRequest.getOptionalAttendees());
+          indexBuilder = new AttendeeIndex.Builder().retainOnly(attendees);
+        } else if (name.equals("events")) {
+          if (indexBuilder == null) {
+            response.sendError(
+                HttpServletResponse.SC_BAD_REQUEST, "\"request\" must come before \"events\".");
+            return;
+          }
+          EventJsonReader.readEvents(reader, indexBuilder::add);
+        } else {
+          reader.skipValue();
+        }
+      }
+      reader.endObject();
+    } catch (JsonParseException | IllegalStateException | IOException e) {
+      // Gson reports malformed JSON as an IOException, which can't be told apart from a broken
+      // connection here. Either way, there is no valid request to answer.
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Malformed JSON: " + e.getMessage());
+      return;
+    }
+
+    if (meetingRequest == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Missing \"request\".");
+      return;
+    }
+
+    // Find the possible meeting times.
+    Collection<TimeRange> answer =
+        QueryServlet.FIND_MEETING_QUERY.query(indexBuilder.build(), meetingRequest);
+
+    // Send the times back in the format the client asked for.
+    TimeRangeCodec.write(request, response, answer);
+  }
+}
@@ -0,0 +1,196 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.sps.TimeRange;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Writes lists of time ranges in whichever format the client asks for with its Accept header. Along
+ * with plain JSON objects, there are two compact formats that leave out the field names:
+ *
+ * <ul>
+ *   <li>{@value #PACKED_JSON}: a JSON array of ints holding, for each time range, the minutes since
+ *       the end of the previous time range (or since the start of the day) followed by its
+ *       duration. Sorted time ranges turn into small numbers this way.
+ *   <li>{@value #VARINT}: the same ints as a binary count followed by the ints, each as a
+ *       ZigZag-encoded base 128 varint, so that most of them take a single byte.
+ * </ul>
+ */
+final class TimeRangeCodec {
+  static final String JSON = "application/json";
+  static final String PACKED_JSON = "application/x-packed-time-ranges+json";
+  static final String VARINT = "application/x-varint-time-ranges";
+
+  /**
+   * Returns the first of the formats in {@code accept}, the value of an Accept header, that this
+   * codec can write. Quality values are ignored. Falls back to plain JSON.
+   */
+  static String negotiate(String accept) {
+    if (accept != null) {
+      for (String mediaRange : accept.split(",")) {
+        String mediaType = mediaRange.split(";", 2)[0].trim();
+        if (mediaType.equalsIgnoreCase(PACKED_JSON)) {
+          return PACKED_JSON;
+        }
+        if (mediaType.equalsIgnoreCase(VARINT)) {
+          return VARINT;
+        }
+        if (mediaType.equalsIgnoreCase(JSON)) {
+          return JSON;
+        }
+      }
+    }
+    return JSON;
+  }
+
+  /** Sends {@code timeRanges} as the response, in the format the request asks for. */
+  static void write(
+      HttpServletRequest request, HttpServletResponse response, Collection<TimeRange> timeRanges)
+      throws IOException {
+    String format = negotiate(request.getHeader("Accept"));
+    response.setContentType(format);
+    response.setHeader("Vary", "Accept");
+
+    if (format.equals(VARINT)) {
+      OutputStream out = new BufferedOutputStream(response.getOutputStream());
+      writeVarints(timeRanges, out);
+      out.flush();
+    } else if (format.equals(PACKED_JSON)) {
+      response.getWriter().println(new Gson().toJson(pack(timeRanges)));
+    } else {
+      response.getWriter().println(new Gson().toJson(timeRanges));
+    }
+  }
+
+  /**
+   * Sends several lists of time ranges as the response, in the format the request asks for. The
+   * JSON formats write an array of lists; the varint format writes the number of lists followed by
+   * each list.
+   */
+  static void writeAll(
+      HttpServletRequest request,
+      HttpServletResponse response,
+      List<? extends Collection<TimeRange>> timeRangeLists)
+      throws IOException {
+    String format = negotiate(request.getHeader("Accept"));
+    response.setContentType(format);
+    response.setHeader("Vary", "Accept");
+
+    if (format.equals(VARINT)) {
+      OutputStream out = new BufferedOutputStream(response.getOutputStream());
+      writeVarint(timeRangeLists.size(), out);
+      for (Collection<TimeRange> timeRanges : timeRangeLists) {
+        writeVarints(timeRanges, out);
+      }
+      out.flush();
+    } else if (format.equals(PACKED_JSON)) {
+      List<int[]> packedLists = new ArrayList<>(timeRangeLists.size());
+      for (Collection<TimeRange> timeRanges : timeRangeLists) {
+        packedLists.add(pack(timeRanges));
+      }
+      response.getWriter().println(new Gson().toJson(packedLists));
+    } else {
+      response.getWriter().println(new Gson().toJson(timeRangeLists));
+    }
+  }
+
+  /** Returns the gap before and the duration of each time range, one after the other. */
+  static int[] pack(Collection<TimeRange> timeRanges) {
+    int[] packed = new int[timeRanges.size() * 2];
+    int i = 0;
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (TimeRange timeRange : timeRanges) {
+      packed[i++] = timeRange.start() - previousEnd;
+      packed[i++] = timeRange.duration();
+      previousEnd = timeRange.end();
+    }
+    return packed;
+  }
+
+  /** Turns the output of {@link #pack(Collection)} back into time ranges. */
+  static List<TimeRange> unpack(int[] packed) {
+    if (packed.length % 2 != 0) {
+      throw new IllegalArgumentException("Packed time ranges must have an even length");
+    }
+
+    List<TimeRange> timeRanges = new ArrayList<>(packed.length / 2);
+    int previousEnd = TimeRange.START_OF_DAY;
+    for (int i = 0; i < packed.length; i += 2) {
+      TimeRange timeRange = TimeRange.fromStartDuration(previousEnd + packed[i], packed[i + 1]);
+      timeRanges.add(timeRange);
+      previousEnd = timeRange.end();
+    }
+    return timeRanges;
+  }
+
+  /** Writes the number of time ranges followed by their packed ints, each as a varint. */
+  static void writeVarints(Collection<TimeRange> timeRanges, OutputStream out) throws IOException {
+    writeVarint(timeRanges.size(), out);
+    for (int value : pack(timeRanges)) {
+      // ZigZag encoding keeps small negative gaps, from overlapping time ranges, small too.
+      writeVarint((value << 1) ^ (value >> 31), out);
+    }
+  }
+
+  /** Reads one list of time ranges written by {@link #writeVarints(Collection, OutputStream)}. */
+  static List<TimeRange> readVarints(InputStream in) throws IOException {
+    int count = readVarint(in);
+    int[] packed = new int[count * 2];
+    for (int i = 0; i < packed.length; i++) {
+      int zigZag = readVarint(in);
+      packed[i] = (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+    return unpack(packed);
+  }
+
+  /** Writes the bits of {@code value} seven at a time, lowest first. */
+  private static void writeVarint(int value, OutputStream out) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.write((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.write(value);
+  }
+
+  private static int readVarint(InputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 32; shift += 7) {
+      int b = in.read();
+      if (b < 0) {
+        throw new EOFException("Truncated varint");
+      }
+      value |= (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Varint is too long");
+  }
+
+  private TimeRangeCodec() {
+    // Disallow instances.
+  }
+}
@@ -90,6 +90,12 @@ class MeetingRequest {
   constructor(duration, attendees) {
     this.duration = duration;
     this.attendees = attendees;
+
+    // Time ranges the meeting may be held in. Empty means any time of day.
+    this.availability = [];
+
+    // Maps attendee names to the time ranges they can meet in.
+    this.attendee_availability = {};
   }
 }
 
@@ -0,0 +1,134 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIndexTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final Collection<Event> EVENTS =
+      Arrays.asList(
+          new Event(
+              "Event 1",
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              Arrays.asList(PERSON_A)),
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_A, PERSON_B)),
+          new Event(
+              "Event 3",
+              TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+              Arrays.asList(PERSON_B)));
+
+  @Test
+  public void mergesEventsOfOneAttendee() {
+    AttendeeIndex index = new AttendeeIndex(EVENTS);
+
+    List<TimeRange> actual = index.getBusyTimeRanges(PERSON_A);
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void unknownAttendeeIsNeverBusy() {
+    AttendeeIndex index = new AttendeeIndex(EVENTS);
+
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimeRanges(PERSON_C));
+  }
+
+  @Test
+  public void combinesBusyTimesOfAGroup() {
+    AttendeeIndex index = new AttendeeIndex(EVENTS);
+
+    // Person B's events touch but don't overlap, so they stay separate from each other, but the
+    // first one overlaps with Person A's events.
+    List<TimeRange> actual = index.getBusyTimeRanges(Arrays.asList(PERSON_A, PERSON_B, PERSON_C));
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void queryWithIndexMatchesQueryWithEvents() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(Events.events));
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Ava"), 30);
+    request.addOptionalAttendee("Emma");
+
+    Assert.assertEquals(
+        query.query(Arrays.asList(Events.events), request), query.query(index, request));
+  }
+
+  @Test
+  public void numbersAttendeesInOrderOfFirstEvent() {
+    AttendeeIndex index = new AttendeeIndex(EVENTS);
+    AttendeeDictionary dictionary = index.getDictionary();
+
+    Assert.assertEquals(0, dictionary.find(PERSON_A));
+    Assert.assertEquals(1, dictionary.find(PERSON_B));
+    Assert.assertEquals(AttendeeDictionary.UNKNOWN, dictionary.find(PERSON_C));
+    Assert.assertEquals(PERSON_B, dictionary.nameOf(1));
+    Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_B), index.getAttendees());
+  }
+
+  @Test
+  public void builderOnlyRetainsRequestedAttendees() {
+    AttendeeIndex.Builder builder = new AttendeeIndex.Builder().retainOnly(Arrays.asList(PERSON_B));
+    EVENTS.forEach(builder::add);
+    AttendeeIndex index = builder.build();
+
+    Assert.assertEquals(Arrays.asList(PERSON_B), index.getAttendees());
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimeRanges(PERSON_A));
+  }
+
+  @Test
+  public void checksWhetherAttendeeIsFree() {
+    AttendeeIndex index = new AttendeeIndex(EVENTS);
+
+    // Person A is busy from 8:00 to 10:00.
+    Assert.assertFalse(index.isFree(PERSON_A, TimeRange.fromStartDuration(TIME_0900AM, 30)));
+    Assert.assertFalse(index.isFree(PERSON_A, TimeRange.fromStartDuration(TIME_0800AM - 30, 31)));
+    Assert.assertFalse(index.isFree(PERSON_A, TimeRange.fromStartDuration(TIME_0830AM, 0)));
+    Assert.assertTrue(index.isFree(PERSON_A, TimeRange.fromStartDuration(TIME_0800AM - 30, 30)));
+    Assert.assertTrue(index.isFree(PERSON_A, TimeRange.fromStartDuration(TIME_1000AM, 60)));
+    Assert.assertTrue(index.isFree(PERSON_C, TimeRange.WHOLE_DAY));
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CachingMeetingQueryTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  @Test
+  public void sameRequestInAnyOrderIsAHit() {
+    CachingMeetingQuery query = new CachingMeetingQuery(new EventStore(), /* maximumSize= */ 10);
+
+    query.query(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES));
+    query.query(new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A), DURATION_30_MINUTES));
+    query.query(new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    Assert.assertEquals(1, query.getStats().hitCount());
+    Assert.assertEquals(2, query.getStats().missCount());
+  }
+
+  @Test
+  public void hitsCountAsQueries() {
+    SchedulerMetrics metrics = new SchedulerMetrics();
+    CachingMeetingQuery query =
+        new CachingMeetingQuery(
+            new EventStore(), /* maximumSize= */ 10, new FindMeetingQuery(metrics));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    query.query(request);
+    query.query(request);
+
+    Assert.assertEquals(1, query.getStats().hitCount());
+    Assert.assertEquals(2, metrics.getCount(SchedulerMetrics.Counter.QUERIES));
+  }
+
+  @Test
+  public void changingTheCalendarInvalidatesAnswers() {
+    EventStore store = new EventStore();
+    CachingMeetingQuery query = new CachingMeetingQuery(store, /* maximumSize= */ 10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), query.query(request));
+
+    store.add(
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)));
+
+    Collection<TimeRange> actual = query.query(request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(0, query.getStats().hitCount());
+  }
+
+  @Test
+  public void differentAvailabilityIsAMiss() {
+    CachingMeetingQuery query = new CachingMeetingQuery(new EventStore(), /* maximumSize= */ 10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addAvailability(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false));
+
+    query.query(new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+    Collection<TimeRange> actual = query.query(request);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)), actual);
+    Assert.assertEquals(0, query.getStats().hitCount());
+  }
+}
@@ -0,0 +1,129 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventIntervalTreeTest {
+  private static final String PERSON_A = "Person A";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final Event LONG_EVENT =
+      new Event(
+          "Long", TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false), Arrays.asList(PERSON_A));
+  private static final Event SHORT_EVENT =
+      new Event(
+          "Short",
+          TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+          Arrays.asList(PERSON_A));
+  private static final Event EMPTY_EVENT =
+      new Event("Empty", TimeRange.fromStartDuration(TIME_1000AM, 0), Arrays.asList(PERSON_A));
+
+  @Test
+  public void emptyTreeHasNoOverlaps() {
+    EventIntervalTree tree = new EventIntervalTree(Collections.emptyList());
+
+    Assert.assertEquals(Collections.emptyList(), tree.getOverlapping(TimeRange.WHOLE_DAY));
+    Assert.assertFalse(tree.hasOverlapping(TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void findsOverlappingEventsSortedByStart() {
+    EventIntervalTree tree =
+        new EventIntervalTree(Arrays.asList(EMPTY_EVENT, SHORT_EVENT, LONG_EVENT));
+
+    Assert.assertEquals(
+        Arrays.asList(LONG_EVENT, SHORT_EVENT, EMPTY_EVENT),
+        tree.getOverlapping(TimeRange.WHOLE_DAY));
+    Assert.assertEquals(
+        Arrays.asList(LONG_EVENT, SHORT_EVENT),
+        tree.getOverlapping(TimeRange.fromStartDuration(TIME_0900AM, 30)));
+    Assert.assertEquals(
+        Arrays.asList(LONG_EVENT, EMPTY_EVENT),
+        tree.getOverlapping(TimeRange.fromStartDuration(TIME_1000AM, 30)));
+  }
+
+  @Test
+  public void touchingEventsDoNotOverlap() {
+    EventIntervalTree tree = new EventIntervalTree(Arrays.asList(SHORT_EVENT));
+
+    Assert.assertFalse(
+        tree.hasOverlapping(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false)));
+    Assert.assertFalse(
+        tree.hasOverlapping(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false)));
+    Assert.assertTrue(tree.hasOverlapping(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, true)));
+  }
+
+  @Test
+  public void emptyEventsOnlyOverlapRangesWithDuration() {
+    EventIntervalTree tree = new EventIntervalTree(Arrays.asList(EMPTY_EVENT));
+
+    Assert.assertTrue(tree.hasOverlapping(TimeRange.fromStartDuration(TIME_1000AM, 30)));
+    Assert.assertFalse(tree.hasOverlapping(TimeRange.fromStartDuration(TIME_1000AM, 0)));
+    Assert.assertFalse(
+        tree.hasOverlapping(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)));
+    Assert.assertEquals(
+        Collections.emptyList(), tree.getOverlapping(TimeRange.fromStartDuration(TIME_1000AM, 0)));
+  }
+
+  @Test
+  public void matchesLinearScan() {
+    // Many of the events and ranges are empty, since they overlap by different rules.
+    Random random = new Random(25);
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      int start = random.nextInt(TimeRange.END_OF_DAY);
+      int duration =
+          random.nextInt(4) == 0
+              ? 0
+              : random.nextInt(Math.min(120, TimeRange.END_OF_DAY - start + 1));
+      events.add(
+          new Event(
+              "Event " + i, TimeRange.fromStartDuration(start, duration), Arrays.asList(PERSON_A)));
+    }
+    EventIntervalTree tree = new EventIntervalTree(events);
+
+    for (int i = 0; i < 2000; i++) {
+      int start = random.nextInt(TimeRange.END_OF_DAY);
+      TimeRange range =
+          TimeRange.fromStartDuration(start, random.nextInt(4) == 0 ? 0 : random.nextInt(60));
+      List<Event> expected =
+          events.stream()
+              .filter(event -> event.getWhen().overlaps(range))
+              .sorted((a, b) -> TimeRange.ORDER_BY_START.compare(a.getWhen(), b.getWhen()))
+              .collect(Collectors.toList());
+
+      Assert.assertEquals(
+          expected.stream().map(Event::getWhen).collect(Collectors.toList()),
+          tree.getOverlapping(range).stream().map(Event::getWhen).collect(Collectors.toList()));
+      Assert.assertEquals(!expected.isEmpty(), tree.hasOverlapping(range));
+    }
+  }
+}
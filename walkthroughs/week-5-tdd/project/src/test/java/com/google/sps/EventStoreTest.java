@@ -0,0 +1,121 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  private static final Event EVENT_1 =
+      new Event(
+          "Event 1",
+          TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+          Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 =
+      new Event(
+          "Event 2",
+          TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+          Arrays.asList(PERSON_A, PERSON_B));
+  private static final Event BRIDGE =
+      new Event(
+          "Bridge",
+          TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false),
+          Arrays.asList(PERSON_A));
+
+  @Test
+  public void addingAnEventMergesNeighbours() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_1, EVENT_2));
+    store.add(BRIDGE);
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, store.getBusyTimeRanges(PERSON_A));
+  }
+
+  @Test
+  public void removingAnEventSplitsTheBusyBlock() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_1, EVENT_2, BRIDGE));
+
+    Assert.assertTrue(store.remove(BRIDGE));
+
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    Assert.assertEquals(expected, store.getBusyTimeRanges(PERSON_A));
+  }
+
+  @Test
+  public void removingAMissingEventDoesNothing() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_1));
+
+    Assert.assertFalse(store.remove(EVENT_2));
+    Assert.assertEquals(1, store.size());
+    Assert.assertEquals(Collections.emptyList(), store.getBusyTimeRanges(PERSON_B));
+  }
+
+  @Test
+  public void matchesIndexAfterRandomChanges() {
+    // Adds and removes random events, checking after every change that the store has the same
+    // busy times as an index built from scratch.
+    Random random = new Random(/* seed= */ 8);
+    List<String> people = Arrays.asList(PERSON_A, PERSON_B, "Person C");
+    EventStore store = new EventStore();
+    List<Event> events = new ArrayList<>();
+
+    for (int i = 0; i < 500; i++) {
+      if (!events.isEmpty() && random.nextInt(3) == 0) {
+        Event removed = events.remove(random.nextInt(events.size()));
+        Assert.assertTrue(store.remove(removed));
+      } else {
+        int start = random.nextInt(TimeRange.END_OF_DAY);
+        int duration = random.nextInt(120);
+        Event added =
+            new Event(
+                "Event " + i,
+                TimeRange.fromStartDuration(start, duration),
+                people.subList(random.nextInt(2), 2 + random.nextInt(2)));
+        events.add(added);
+        store.add(added);
+      }
+
+      AttendeeIndex index = new AttendeeIndex(events);
+      for (String person : people) {
+        Assert.assertEquals(index.getBusyTimeRanges(person), store.getBusyTimeRanges(person));
+      }
+    }
+    Assert.assertEquals(events.size(), store.size());
+  }
+}
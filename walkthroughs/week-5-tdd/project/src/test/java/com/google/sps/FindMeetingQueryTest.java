@@ -14,9 +14,12 @@
 
 package com.google.sps;
 
+import com.google.gson.Gson;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -33,6 +36,7 @@ public final class FindMeetingQueryTest {
   private static final String PERSON_A = "Person A";
   private static final String PERSON_B = "Person B";
   private static final String PERSON_C = "Person C";
+  private static final String PERSON_D = "Person D";
 
   // All dates are the first day of the year 2020.
   private static final int TIME_0000AM = TimeRange.getTimeInMinutes(0, 0);
@@ -644,4 +648,733 @@ public final class FindMeetingQueryTest {
     Collection<TimeRange> expected = Arrays.asList(TimeRange.WHOLE_DAY);
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void eventBridgesTwoEarlierEvents() {
+    // The last event overlaps both earlier events, so all three must merge into one busy block
+    // even though the earlier events don't overlap each other.
+    //
+    // Events  :       |--A--|     |--B--|
+    //                     |---C---|
+    // Day     : |---------------------------|
+    // Options : |--1--|                 |-2-|
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_0830AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B, PERSON_C), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void manyBackToBackEvents() {
+    // Every 15 minutes from 8:00 to 17:00 someone has an event. They should all merge into one
+    // busy block.
+    List<Event> events = new ArrayList<>();
+    for (int start = TIME_0800AM; start < TIME_0500PM; start += DURATION_15_MINUTES) {
+      events.add(
+          new Event(
+              "Event " + start,
+              TimeRange.fromStartDuration(start, DURATION_30_MINUTES),
+              Arrays.asList(start % 2 == 0 ? PERSON_A : PERSON_B)));
+    }
+    // Reverse the events so that they are not already sorted by start time.
+    Collections.reverse(events);
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0500PM + DURATION_15_MINUTES, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void horizonSpansSeveralDays() {
+    // Person A is busy in the morning of day 0 and in an event running overnight into day 1.
+    // Free time is reported across midnight and until the end of the horizon.
+    //
+    // Events  :  |-A-|           |---A---|
+    // Days    : |------- 0 -------|------- 1 -------|
+    // Options : |-1-|   |---2---|         |---3----|
+
+    long dayOne = EpochTimeRange.MINUTES_PER_DAY;
+    Collection<EpochEvent> events =
+        Arrays.asList(
+            new EpochEvent(
+                "Overnight",
+                EpochTimeRange.fromStartEnd(dayOne - DURATION_60_MINUTES, dayOne + TIME_0800AM),
+                Arrays.asList(PERSON_A)),
+            new EpochEvent(
+                "Morning",
+                EpochTimeRange.fromStartDuration(TIME_0900AM, DURATION_60_MINUTES),
+                Arrays.asList(PERSON_A, PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+
+    List<EpochTimeRange> actual =
+        query.queryHorizon(events, request, EpochTimeRange.ofDays(/* day= */ 0, /* dayCount= */ 2));
+    List<EpochTimeRange> expected =
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(0, TIME_0900AM),
+            EpochTimeRange.fromStartEnd(TIME_1000AM, dayOne - DURATION_60_MINUTES),
+            EpochTimeRange.fromStartEnd(dayOne + TIME_0800AM, 2 * dayOne));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void horizonFallsBackToMandatoryAttendees() {
+    // Optional Person B is busy for the whole horizon, so only Person A is considered.
+    Collection<EpochEvent> events =
+        Arrays.asList(
+            new EpochEvent(
+                "Busy",
+                EpochTimeRange.ofDays(/* day= */ 0, /* dayCount= */ 3),
+                Arrays.asList(PERSON_B)),
+            new EpochEvent(
+                "Event 1",
+                EpochTimeRange.fromStartDuration(TIME_0800AM, DURATION_60_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    EpochTimeRange horizon = EpochTimeRange.fromStartEnd(TIME_0000AM, TIME_1200PM);
+    List<EpochTimeRange> actual = query.queryHorizon(events, request, horizon);
+    List<EpochTimeRange> expected =
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(TIME_0000AM, TIME_0800AM),
+            EpochTimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void horizonRejectsUnsortedEvents() {
+    List<EpochEvent> events =
+        Arrays.asList(
+            new EpochEvent(
+                "Event 1",
+                EpochTimeRange.fromStartDuration(TIME_1000AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)),
+            new EpochEvent(
+                "Event 2",
+                EpochTimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    query.queryHorizon(events.iterator(), request, EpochTimeRange.ofDays(0, 1));
+  }
+
+  @Test
+  public void horizonKeepsToAvailabilityOnEveryDay() {
+    // Person A is busy from 10:00 to 11:00 on day 0 and the meeting has to happen between 9:00 and
+    // 17:00, so nights are never offered.
+    //
+    // Events  :     |A|
+    // Windows :   |------|           |------|
+    // Days    : |------- 0 -------|------- 1 -------|
+    // Options :   |1| |-2-|          |--3---|
+
+    long dayOne = EpochTimeRange.MINUTES_PER_DAY;
+    Collection<EpochEvent> events =
+        Arrays.asList(
+            new EpochEvent(
+                "Event 1",
+                EpochTimeRange.fromStartDuration(TIME_1000AM, DURATION_60_MINUTES),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addAvailability(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+
+    List<EpochTimeRange> actual =
+        query.queryHorizon(events, request, EpochTimeRange.ofDays(/* day= */ 0, /* dayCount= */ 2));
+    List<EpochTimeRange> expected =
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM),
+            EpochTimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM),
+            EpochTimeRange.fromStartEnd(dayOne + TIME_0900AM, dayOne + TIME_0500PM));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void horizonJoinsAvailabilityAcrossMidnight() {
+    // Person A is only available from 17:00 until 1:00 the next morning, which is long enough for
+    // a meeting of several hours that runs past midnight. The hour after midnight on day 0 is too
+    // short on its own.
+    long dayOne = EpochTimeRange.MINUTES_PER_DAY;
+    int oneAm = TimeRange.getTimeInMinutes(1, 0);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), 4 * DURATION_60_MINUTES);
+    request.addAttendeeAvailability(
+        PERSON_A, TimeRange.fromStartEnd(TIME_0500PM, TimeRange.END_OF_DAY, true));
+    request.addAttendeeAvailability(PERSON_A, TimeRange.fromStartEnd(TIME_0000AM, oneAm, false));
+
+    List<EpochTimeRange> actual =
+        query.queryHorizon(
+            Collections.emptyList(),
+            request,
+            EpochTimeRange.ofDays(/* day= */ 0, /* dayCount= */ 2));
+    List<EpochTimeRange> expected =
+        Arrays.asList(
+            EpochTimeRange.fromStartEnd(TIME_0500PM, dayOne + oneAm),
+            EpochTimeRange.fromStartEnd(dayOne + TIME_0500PM, 2 * dayOne));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizesOptionalAttendees() {
+    // No slot fits every optional attendee: Person B is busy all morning, Person C all afternoon
+    // and Person D all day. The best slots are the ones where only two of them have to miss out,
+    // which are the ones that don't cross noon.
+    //
+    // Events  :       |-A-|
+    //           |-----B-----|
+    //                       |-------C-------|
+    //           |---------------D-----------|
+    // Day     : |---------------------------|
+    // Options : |-1-|     |2|-------3-------|
+
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0000AM, TIME_1200PM, false),
+                Arrays.asList(PERSON_B)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_C)),
+            new Event("Event 4", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_D)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+    request.addOptionalAttendee(PERSON_D);
+
+    Collection<TimeRange> actual =
+        query.queryMaximizingOptionalAttendees(new AttendeeIndex(events), request);
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM, false),
+            TimeRange.fromStartEnd(TIME_1200PM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void maximizingOptionalAttendeesRespectsMandatoryAttendees() {
+    // Person A is busy all day, so there are no options no matter who is optional.
+    Collection<Event> events =
+        Arrays.asList(new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    Collection<TimeRange> actual =
+        query.queryMaximizingOptionalAttendees(new AttendeeIndex(events), request);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  @Test
+  public void queryAllMatchesQueryingOneByOne() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(Events.events));
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    for (int duration = DURATION_15_MINUTES; duration <= DURATION_2_HOUR; duration += 15) {
+      requests.add(new MeetingRequest(Arrays.asList("Amelia", "Isabella"), duration));
+      MeetingRequest withOptional = new MeetingRequest(Arrays.asList("Liam"), duration);
+      withOptional.addOptionalAttendee("Emma");
+      requests.add(withOptional);
+    }
+
+    List<Collection<TimeRange>> expected = new ArrayList<>();
+    for (MeetingRequest request : requests) {
+      expected.add(query.query(index, request));
+    }
+
+    Assert.assertEquals(expected, query.queryAll(index, requests));
+  }
+
+  /**
+   * Events that split Person A's day into four free time ranges: before 8:00, 9:00 to 10:00, 11:00
+   * to 12:00 and after 17:00.
+   */
+  private static AttendeeIndex fourOptionsIndex() {
+    return new AttendeeIndex(
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_1200PM, TIME_0500PM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 4",
+                TimeRange.fromStartEnd(TIME_0000AM, TIME_0930AM, false),
+                Arrays.asList(PERSON_B))));
+  }
+
+  @Test
+  public void bestEarliestTimes() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.queryBest(fourOptionsIndex(), request, /* limit= */ 2, SlotRankings.earliest());
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bestTimesWithUnlimitedLimit() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.queryBest(
+            fourOptionsIndex(), request, /* limit= */ Integer.MAX_VALUE, SlotRankings.earliest());
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false),
+            TimeRange.fromStartEnd(TIME_0500PM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bestTimesClosestToPreferredTime() {
+    // A meeting at 11:30 is possible in the 11:00 to 12:00 range. The 9:00 to 10:00 range is 90
+    // minutes away and the range after 17:00 is 330 minutes away.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    int preferredStart = TimeRange.getTimeInMinutes(11, 30);
+
+    List<TimeRange> actual =
+        query.queryBest(
+            fourOptionsIndex(),
+            request,
+            /* limit= */ 2,
+            SlotRankings.closestTo(preferredStart, DURATION_30_MINUTES));
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bestTimesWithFewestOptionalConflicts() {
+    // Optional Person B is busy until 9:30, so the range before 8:00 and the first half of the 9:00
+    // to 10:00 range conflict with them and rank behind the rest.
+    AttendeeIndex index = fourOptionsIndex();
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<TimeRange> actual =
+        query.queryBest(
+            index,
+            request,
+            /* limit= */ 4,
+            SlotRankings.fewestConflicts(index, request.getOptionalAttendees()));
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false),
+            TimeRange.fromStartEnd(TIME_0500PM, TimeRange.END_OF_DAY, true),
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bestTimesIncludeFreeSlotInsidePartlyBusyRange() {
+    // Person A is only free from 9:00 to 10:00 and optional Person B is busy until 9:30. The free
+    // range is partly busy for Person B, but a meeting at 9:30 works for both of them.
+    AttendeeIndex index =
+        new AttendeeIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Event 2",
+                    TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Event 3",
+                    TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+                    Arrays.asList(PERSON_B))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<TimeRange> actual =
+        query.queryBest(
+            index,
+            request,
+            /* limit= */ 1,
+            SlotRankings.fewestConflicts(index, request.getOptionalAttendees()));
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void bestTimesOfferMeetingsAcrossShortPieces() {
+    // Optional Person B is busy from 9:10 to 9:20 and optional Person C from 9:40 to 9:50, which
+    // cuts the 9:00 to 10:00 range into pieces too short for a 30 minute meeting. The range still
+    // offers meetings that straddle the pieces, each conflicting with one of them.
+    AttendeeIndex index =
+        new AttendeeIndex(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Event 2",
+                    TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Event 3",
+                    TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 10), 10),
+                    Arrays.asList(PERSON_B)),
+                new Event(
+                    "Event 4",
+                    TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(9, 40), 10),
+                    Arrays.asList(PERSON_C))));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<TimeRange> actual =
+        query.queryBest(
+            index,
+            request,
+            /* limit= */ 10,
+            SlotRankings.fewestConflicts(index, request.getOptionalAttendees()));
+
+    Assert.assertFalse(actual.isEmpty());
+    for (TimeRange slot : actual) {
+      Assert.assertTrue(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false).contains(slot));
+      Assert.assertTrue(slot.duration() >= DURATION_30_MINUTES);
+    }
+    Assert.assertEquals(
+        TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES), actual.get(0));
+  }
+
+  @Test
+  public void queryForDurationsMatchesQueryingEachDuration() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(Events.events));
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Amelia", "Logan"), DURATION_1_HOUR);
+    request.addOptionalAttendee("Isabella");
+
+    // Repeated durations get an answer each, so the answers line up with the durations.
+    List<Long> durations = Arrays.asList(15L, 30L, 45L, 30L, 60L, 120L, 240L, 15L);
+    List<Collection<TimeRange>> actual = query.queryForDurations(index, request, durations);
+
+    Assert.assertEquals(durations.size(), actual.size());
+    for (int i = 0; i < durations.size(); i++) {
+      MeetingRequest single = new MeetingRequest(request.getAttendees(), durations.get(i));
+      single.addOptionalAttendee("Isabella");
+      Assert.assertEquals(query.query(index, single), actual.get(i));
+    }
+  }
+
+  @Test
+  public void onlyWithinWorkingHours() {
+    // Working hours: |--------------|
+    // Person A :           |--A--|
+    // Day      : |-------------------------------|
+    // Options  : |--1--|         |-2-|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+                Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addAvailability(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, query.query(events, request));
+    Assert.assertEquals(expected, query.queryWithBitmaps(new AttendeeIndex(events), request));
+  }
+
+  @Test
+  public void onlyWhereAttendeeAvailabilityOverlaps() {
+    // Person A's hours : |---------|
+    // Person B's hours :       |---------|
+    // Day              : |-------------------------------|
+    // Options          :       |-1-|
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addAttendeeAvailability(
+        PERSON_A, TimeRange.fromStartEnd(TIME_0800AM, TIME_1200PM, false));
+    request.addAttendeeAvailability(
+        PERSON_B, TimeRange.fromStartEnd(TIME_1100AM, TIME_0500PM, false));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_1100AM, TIME_1200PM, false));
+
+    Assert.assertEquals(expected, query.query(NO_EVENTS, request));
+    Assert.assertEquals(expected, query.queryWithBitmaps(new AttendeeIndex(NO_EVENTS), request));
+  }
+
+  @Test
+  public void ignoreOptionalAttendeeOutsideTheirAvailability() {
+    // Person C can only meet before work starts for person A, so they are left out.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    request.addAttendeeAvailability(
+        PERSON_A, TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+    request.addAttendeeAvailability(
+        PERSON_C, TimeRange.fromStartEnd(TIME_0000AM, TIME_0800AM, false));
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, query.query(NO_EVENTS, request));
+    Assert.assertEquals(expected, query.queryWithBitmaps(new AttendeeIndex(NO_EVENTS), request));
+  }
+
+  @Test
+  public void horizonExpandsRecurringEventsLazily() {
+    // Person A has a daily standup from 9:00 to 10:00 that was cancelled on day 1, and a one-off
+    // event from 12:00 to 17:00 on day 2. Person C's weekly event is ignored.
+    TimeRange standup = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+    Collection<RecurringEvent> recurringEvents =
+        Arrays.asList(
+            new RecurringEvent.Builder(
+                    "Standup", standup, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY)
+                .except(1)
+                .build(),
+            new RecurringEvent.Builder(
+                    "Weekly",
+                    TimeRange.WHOLE_DAY,
+                    Arrays.asList(PERSON_C),
+                    RecurringEvent.Frequency.WEEKLY)
+                .build());
+    Collection<EpochEvent> events =
+        Arrays.asList(
+            new EpochEvent(
+                "Event 1",
+                EpochTimeRange.onDay(2, TimeRange.fromStartEnd(TIME_1200PM, TIME_0500PM, false)),
+                Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    EpochTimeRange horizon = EpochTimeRange.ofDays(/* day= */ 0, /* dayCount= */ 3);
+
+    List<EpochTimeRange> actual = query.queryHorizon(events, recurringEvents, request, horizon);
+    List<EpochEvent> expandedEvents = new ArrayList<>(events);
+    for (long day : new long[] {0, 2}) {
+      expandedEvents.add(
+          new EpochEvent("Standup", EpochTimeRange.onDay(day, standup), Arrays.asList(PERSON_A)));
+    }
+    List<EpochTimeRange> expected = query.queryHorizon(expandedEvents, request, horizon);
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(4, actual.size());
+  }
+
+  @Test
+  public void roomsThatAreFreeAndBigEnough() {
+    // Person A is busy until 9:00 and the medium room is booked from 10:00 to 17:00. The small
+    // room is too small for two people, and the large room is free all day.
+    Room small = new Room("Small", 1);
+    Room medium = new Room("Medium", 4);
+    Room large = new Room("Large", 10);
+    EventStore calendar =
+        new EventStore(
+            Arrays.asList(
+                new Event(
+                    "Event 1",
+                    TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                    Arrays.asList(PERSON_A)),
+                new Event(
+                    "Booking 1",
+                    TimeRange.fromStartEnd(TIME_1000AM, TIME_0500PM, false),
+                    Arrays.asList(medium.getName()))));
+    RoomIndex rooms = new RoomIndex(Arrays.asList(large, small, medium), calendar);
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    List<RoomBooking> actual = query.queryWithRooms(calendar, rooms, request);
+
+    TimeRange afterA = TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true);
+    List<RoomBooking> expected =
+        Arrays.asList(
+            new RoomBooking(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false), medium),
+            new RoomBooking(afterA, large),
+            new RoomBooking(
+                TimeRange.fromStartEnd(TIME_0500PM, TimeRange.END_OF_DAY, true), medium));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void roomsFallBackToMandatoryAttendees() {
+    // The only room holds two people, so optional Person C doesn't fit.
+    Room room = new Room("Room", 2);
+    RoomIndex rooms = new RoomIndex(Arrays.asList(room), new EventStore());
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    List<RoomBooking> actual = query.queryWithRooms(new EventStore(), rooms, request);
+
+    Assert.assertEquals(Arrays.asList(new RoomBooking(TimeRange.WHOLE_DAY, room)), actual);
+  }
+
+  @Test
+  public void roomsCountAttendeeListedTwiceOnce() {
+    // Person B is both mandatory and optional, so the meeting needs three seats rather than four
+    // and optional Person C fits in the room. Their busy time has to be kept clear. Requests sent
+    // as JSON can list someone twice, unlike ones built with addOptionalAttendee.
+    EventStore calendar = new EventStore();
+    calendar.add(
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_C)));
+    Room room = new Room("Room", 3);
+    RoomIndex rooms = new RoomIndex(Arrays.asList(room), calendar);
+
+    MeetingRequest request =
+        new Gson()
+            .fromJson(
+                "{\"attendees\": [\"Person A\", \"Person B\"],"
+                    + " \"optional_attendees\": [\"Person B\", \"Person C\"],"
+                    + " \"duration\": 60}",
+                MeetingRequest.class);
+    List<RoomBooking> actual = query.queryWithRooms(calendar, rooms, request);
+    List<RoomBooking> expected =
+        Arrays.asList(
+            new RoomBooking(
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), room),
+            new RoomBooking(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), room));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void conflictCostsOnFullyBookedDay() {
+    // Person A has no free time, but only the start and the end of the day are firm commitments.
+    //
+    // Person A : |--Busy--|--Focus--|--Tentative--|--Busy--|
+    // Day      : |---------------------------------------|
+    // Options  :          |---3---|
+    //                          |---4---|
+    //                              |------1------|
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+                Arrays.asList(PERSON_A)),
+            new Event(
+                "Event 2",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM, false),
+                Arrays.asList(PERSON_A),
+                Event.BusyType.FOCUS_TIME),
+            new Event(
+                "Event 3",
+                TimeRange.fromStartEnd(TIME_1200PM, TIME_0500PM, false),
+                Arrays.asList(PERSON_A),
+                Event.BusyType.TENTATIVE),
+            new Event(
+                "Event 4",
+                TimeRange.fromStartEnd(TIME_0500PM, TimeRange.END_OF_DAY, true),
+                Arrays.asList(PERSON_A)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+
+    List<ScoredTimeRange> actual = query.queryWithConflictCosts(events, request);
+    List<ScoredTimeRange> expected =
+        Arrays.asList(
+            new ScoredTimeRange(TimeRange.fromStartEnd(TIME_1200PM, TIME_0500PM, false), 1),
+            new ScoredTimeRange(TimeRange.fromStartEnd(TIME_0900AM, TIME_1200PM, false), 3),
+            new ScoredTimeRange(
+                TimeRange.fromStartEnd(
+                    TIME_1100AM + 1, TIME_1200PM + DURATION_60_MINUTES - 1, false),
+                4));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Collections.emptyList(), query.query(events, request));
+  }
+
+  @Test
+  public void conflictCostsChargeForMissingOptionalAttendees() {
+    Collection<Event> events =
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+                Arrays.asList(PERSON_B)));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<ScoredTimeRange> actual = query.queryWithConflictCosts(events, request);
+    List<ScoredTimeRange> expected =
+        Arrays.asList(
+            new ScoredTimeRange(
+                TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false), 0),
+            new ScoredTimeRange(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), 0),
+            new ScoredTimeRange(
+                TimeRange.fromStartEnd(
+                    TIME_0900AM - DURATION_30_MINUTES + 1,
+                    TIME_1000AM + DURATION_30_MINUTES - 1,
+                    false),
+                Event.BusyType.BUSY.getConflictCost()));
+
+    Assert.assertEquals(expected, actual);
+  }
 }
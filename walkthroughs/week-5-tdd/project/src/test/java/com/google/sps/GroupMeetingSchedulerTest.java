@@ -0,0 +1,151 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class GroupMeetingSchedulerTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1030AM = TimeRange.getTimeInMinutes(10, 30);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+  private static final int TIME_1130AM = TimeRange.getTimeInMinutes(11, 30);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  /**
+   * Person A is only free from 9:00 to 11:00, person B from 10:00 to 12:00 and person C from 11:30
+   * to 13:00, on top of working hours from 9:00 to 13:00.
+   */
+  private static EventStore interviewers() {
+    EventStore store = new EventStore();
+    store.add(
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_1100AM, TIME_0100PM, false),
+            Arrays.asList(PERSON_A)));
+    store.add(
+        new Event(
+            "Event 2",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)));
+    store.add(
+        new Event(
+            "Event 3",
+            TimeRange.fromStartEnd(TIME_1200PM, TIME_0100PM, false),
+            Arrays.asList(PERSON_B)));
+    store.add(
+        new Event(
+            "Event 4",
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1130AM, false),
+            Arrays.asList(PERSON_C)));
+    return store;
+  }
+
+  private static MeetingRequest interview(String interviewer, int duration) {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(interviewer), duration);
+    request.addAvailability(TimeRange.fromStartEnd(TIME_0900AM, TIME_0100PM, false));
+    return request;
+  }
+
+  @Test
+  public void backToBack() {
+    // A's meeting has to end when B's starts and B's when C's starts at 11:30 or later. The
+    // earliest A can start is 10:00, since B is busy before 10:30.
+    GroupMeetingScheduler scheduler = new GroupMeetingScheduler(interviewers());
+    List<MeetingRequest> meetings =
+        Arrays.asList(
+            interview(PERSON_A, DURATION_30_MINUTES),
+            interview(PERSON_B, DURATION_60_MINUTES),
+            interview(PERSON_C, DURATION_30_MINUTES));
+
+    Optional<List<TimeRange>> actual = scheduler.schedule(meetings, /* maxGapMinutes= */ 0);
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false),
+            TimeRange.fromStartEnd(TIME_1030AM, TIME_1130AM, false),
+            TimeRange.fromStartEnd(TIME_1130AM, TIME_1200PM, false));
+
+    Assert.assertEquals(Optional.of(expected), actual);
+  }
+
+  @Test
+  public void earliestWithinGap() {
+    // A could meet at 9:00, but then C's meeting at 11:30 would be more than an hour later.
+    GroupMeetingScheduler scheduler = new GroupMeetingScheduler(interviewers());
+    List<MeetingRequest> meetings =
+        Arrays.asList(
+            interview(PERSON_A, DURATION_30_MINUTES), interview(PERSON_C, DURATION_30_MINUTES));
+
+    Optional<List<TimeRange>> actual = scheduler.schedule(meetings, /* maxGapMinutes= */ 60);
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TIME_1000AM, TIME_1030AM, false),
+            TimeRange.fromStartEnd(TIME_1130AM, TIME_1200PM, false));
+
+    Assert.assertEquals(Optional.of(expected), actual);
+  }
+
+  @Test
+  public void noScheduleWhenTheGapIsTooShort() {
+    // A's meeting ends at 11:00 at the latest and C's starts at 11:30 at the earliest.
+    GroupMeetingScheduler scheduler = new GroupMeetingScheduler(interviewers());
+    List<MeetingRequest> meetings =
+        Arrays.asList(
+            interview(PERSON_A, DURATION_30_MINUTES), interview(PERSON_C, DURATION_30_MINUTES));
+
+    Assert.assertEquals(Optional.empty(), scheduler.schedule(meetings, /* maxGapMinutes= */ 29));
+  }
+
+  @Test
+  public void noScheduleWhenOrderIsImpossible() {
+    GroupMeetingScheduler scheduler = new GroupMeetingScheduler(interviewers());
+    List<MeetingRequest> meetings =
+        Arrays.asList(
+            interview(PERSON_C, DURATION_30_MINUTES), interview(PERSON_A, DURATION_30_MINUTES));
+
+    Assert.assertEquals(Optional.empty(), scheduler.schedule(meetings, /* maxGapMinutes= */ 600));
+  }
+
+  @Test
+  public void queriesGoThroughTheGivenQuery() {
+    SchedulerMetrics metrics = new SchedulerMetrics();
+    GroupMeetingScheduler scheduler =
+        new GroupMeetingScheduler(interviewers(), new FindMeetingQuery(metrics));
+    List<MeetingRequest> meetings =
+        Arrays.asList(
+            interview(PERSON_A, DURATION_30_MINUTES), interview(PERSON_C, DURATION_30_MINUTES));
+
+    scheduler.schedule(meetings, /* maxGapMinutes= */ 600);
+
+    Assert.assertEquals(2, metrics.getCount(SchedulerMetrics.Counter.QUERIES));
+  }
+}
@@ -0,0 +1,69 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalBufferTest {
+  @Test
+  public void mergesOverlappingButNotTouchingIntervals() {
+    IntervalBuffer buffer = IntervalBuffer.forCurrentThread();
+    buffer.add(600, 660);
+    buffer.add(480, 540);
+    buffer.add(500, 520);
+    buffer.add(540, 570);
+    buffer.add(630, 700);
+    buffer.add(900, 900);
+    buffer.merge();
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(480, 540, false),
+            TimeRange.fromStartEnd(540, 570, false),
+            TimeRange.fromStartEnd(600, 700, false)),
+        buffer.toTimeRanges());
+  }
+
+  @Test
+  public void reusedBufferStartsEmpty() {
+    IntervalBuffer buffer = IntervalBuffer.forCurrentThread();
+    for (int i = 0; i < 100; i++) {
+      buffer.add(i * 10, i * 10 + 5);
+    }
+
+    IntervalBuffer reused = IntervalBuffer.forCurrentThread();
+    reused.merge();
+
+    Assert.assertEquals(0, reused.size());
+    Assert.assertEquals(Collections.emptyList(), reused.toTimeRanges());
+  }
+
+  @Test
+  public void keepsWholeDay() {
+    IntervalBuffer buffer = IntervalBuffer.forCurrentThread();
+    buffer.add(TimeRange.WHOLE_DAY);
+    buffer.add(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TimeRange.END_OF_DAY, true));
+    buffer.merge();
+
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), buffer.toTimeRanges());
+  }
+}
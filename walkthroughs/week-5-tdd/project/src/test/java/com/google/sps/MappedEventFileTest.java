@@ -0,0 +1,216 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MappedEventFileTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  @Rule public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void matchesInMemoryIndex() throws IOException {
+    Collection<Event> events = Arrays.asList(Events.events);
+    Path file = folder.getRoot().toPath().resolve("events");
+    MappedEventFile.write(file, events);
+    AttendeeIndex index = new AttendeeIndex(events);
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      Assert.assertEquals(events.size(), mapped.size());
+      for (String attendee : index.getAttendees()) {
+        Collection<String> attendees = Collections.singleton(attendee);
+        Assert.assertEquals(
+            index.getBusyTimeRanges(attendees), mapped.getBusyTimeRanges(attendees));
+      }
+      Assert.assertEquals(
+          index.getBusyTimeRanges(index.getAttendees()),
+          mapped.getBusyTimeRanges(index.getAttendees()));
+    }
+  }
+
+  @Test
+  public void forEachMappedEventRebuildsIndex() throws IOException {
+    Collection<Event> events = Arrays.asList(Events.events);
+    Path file = folder.getRoot().toPath().resolve("events");
+    MappedEventFile.write(file, events);
+    AttendeeIndex index = new AttendeeIndex(events);
+
+    AttendeeIndex.Builder builder = new AttendeeIndex.Builder();
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      mapped.forEachMappedEvent(builder::add);
+    }
+    AttendeeIndex rebuilt = builder.build();
+
+    Assert.assertEquals(
+        index.getBusyTimeRanges(index.getAttendees()),
+        rebuilt.getBusyTimeRanges(index.getAttendees()));
+  }
+
+  @Test
+  public void appendedEventsSurviveReopening() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events");
+    MappedEventFile.write(
+        file,
+        Arrays.asList(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A))));
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      mapped.append(
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_A, PERSON_C)));
+      Assert.assertEquals(1, mapped.getVersion());
+    }
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      Assert.assertEquals(2, mapped.size());
+      Assert.assertEquals(
+          Arrays.asList(
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+          mapped.getBusyTimeRanges(Arrays.asList(PERSON_A)));
+      Assert.assertEquals(
+          Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+          mapped.getBusyTimeRanges(Arrays.asList(PERSON_B, PERSON_C)));
+    }
+  }
+
+  @Test
+  public void dropsRecordCutShortAtEndOfLog() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events");
+    Path logFile = folder.getRoot().toPath().resolve("events.log");
+    MappedEventFile.write(file, Collections.emptyList());
+
+    long firstRecordEnd;
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      mapped.append(
+          new Event(
+              "Event 1",
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              Arrays.asList(PERSON_A)));
+      firstRecordEnd = Files.size(logFile);
+      mapped.append(
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_A, PERSON_B)));
+    }
+
+    // Cuts the second record off after its title, as a crash in the middle of writing it would.
+    try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+      channel.truncate(firstRecordEnd + 12);
+    }
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      Assert.assertEquals(1, mapped.size());
+      Assert.assertEquals(firstRecordEnd, Files.size(logFile));
+      mapped.append(
+          new Event(
+              "Event 3",
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_B)));
+    }
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      Assert.assertEquals(2, mapped.size());
+      Assert.assertEquals(
+          Arrays.asList(
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+          mapped.getBusyTimeRanges(Arrays.asList(PERSON_A, PERSON_B)));
+    }
+  }
+
+  @Test
+  public void failedAppendLeavesLogUnchanged() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events");
+    MappedEventFile.write(file, Collections.emptyList());
+
+    // Names longer than 65535 bytes can't be written as modified UTF-8.
+    char[] longName = new char[1 << 16];
+    Arrays.fill(longName, 'a');
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      try {
+        mapped.append(
+            new Event(
+                "Event 1",
+                TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+                Arrays.asList(PERSON_A, new String(longName))));
+        Assert.fail("appending a name that is too long should fail");
+      } catch (IOException e) {
+        // Expected.
+      }
+      mapped.append(
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+              Arrays.asList(PERSON_B)));
+    }
+
+    try (MappedEventFile mapped = MappedEventFile.open(file)) {
+      Assert.assertEquals(1, mapped.size());
+      Assert.assertEquals(
+          Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+          mapped.getBusyTimeRanges(Arrays.asList(PERSON_A, PERSON_B)));
+    }
+  }
+
+  @Test
+  public void writeRejectsSoftEvents() throws IOException {
+    Path file = folder.getRoot().toPath().resolve("events");
+    Event tentative =
+        new Event(
+            "Event 1",
+            TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+            Arrays.asList(PERSON_A),
+            Event.BusyType.TENTATIVE);
+
+    try {
+      MappedEventFile.write(file, Arrays.asList(tentative));
+      Assert.fail("writing a tentative event should fail");
+    } catch (IllegalArgumentException e) {
+      // Expected.
+    }
+    Assert.assertFalse(Files.exists(file));
+  }
+}
@@ -0,0 +1,107 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class MinuteBitmapTest {
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 0);
+
+  @Test
+  public void setMarksOnlyTheRange() {
+    MinuteBitmap bitmap = new MinuteBitmap().set(TimeRange.fromStartDuration(60, 70));
+
+    Assert.assertFalse(bitmap.get(59));
+    Assert.assertTrue(bitmap.get(60));
+    Assert.assertTrue(bitmap.get(129));
+    Assert.assertFalse(bitmap.get(130));
+  }
+
+  @Test
+  public void orAndNot() {
+    MinuteBitmap a =
+        new MinuteBitmap().set(TimeRange.fromStartEnd(TIME_0800AM, TIME_1000AM, false));
+    MinuteBitmap b =
+        new MinuteBitmap().set(TimeRange.fromStartEnd(TIME_0900AM, TIME_1100AM, false));
+
+    Assert.assertEquals(
+        new MinuteBitmap().set(TimeRange.fromStartEnd(TIME_0800AM, TIME_1100AM, false)),
+        a.copy().or(b));
+    Assert.assertEquals(
+        new MinuteBitmap().set(TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false)),
+        a.copy().and(b));
+    Assert.assertEquals(new MinuteBitmap().set(TimeRange.WHOLE_DAY), new MinuteBitmap().not());
+    Assert.assertTrue(a.copy().and(a.copy().not()).isEmpty());
+  }
+
+  @Test
+  public void findClearRuns() {
+    MinuteBitmap bitmap =
+        new MinuteBitmap()
+            .set(TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false))
+            .set(TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false));
+
+    List<TimeRange> actual = bitmap.findClearRuns(60);
+    List<TimeRange> expected =
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            TimeRange.fromStartEnd(TIME_1100AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(Collections.emptyList(), new MinuteBitmap().not().findClearRuns(1));
+  }
+
+  @Test
+  public void queryWithBitmapsMatchesQuery() {
+    // Compares the bitmap query with the time range query over many random calendars.
+    Random random = new Random(/* seed= */ 5);
+    List<String> people = Arrays.asList("A", "B", "C", "D", "E", "F");
+    FindMeetingQuery query = new FindMeetingQuery();
+
+    for (int i = 0; i < 200; i++) {
+      List<Event> events = new ArrayList<>();
+      for (int j = 0; j < 10; j++) {
+        int start = random.nextInt(MinuteBitmap.MINUTES_PER_DAY);
+        int duration = random.nextInt(MinuteBitmap.MINUTES_PER_DAY - start) / 4 + 1;
+        events.add(
+            new Event(
+                "Event " + j,
+                TimeRange.fromStartDuration(start, duration),
+                Arrays.asList(people.get(random.nextInt(people.size())))));
+      }
+      AttendeeIndex index = new AttendeeIndex(events);
+
+      MeetingRequest request =
+          new MeetingRequest(people.subList(0, random.nextInt(3)), random.nextInt(120) + 1);
+      request.addOptionalAttendee(people.get(3 + random.nextInt(3)));
+
+      Assert.assertEquals(query.query(events, request), query.queryWithBitmaps(index, request));
+    }
+  }
+}
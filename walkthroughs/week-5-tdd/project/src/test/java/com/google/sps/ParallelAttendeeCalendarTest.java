@@ -0,0 +1,99 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class ParallelAttendeeCalendarTest {
+  @Test
+  public void unionOfMergedLists() {
+    List<TimeRange> a =
+        Arrays.asList(TimeRange.fromStartEnd(0, 10, false), TimeRange.fromStartEnd(20, 30, false));
+    List<TimeRange> b =
+        Arrays.asList(TimeRange.fromStartEnd(5, 25, false), TimeRange.fromStartEnd(30, 40, false));
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(0, 30, false), TimeRange.fromStartEnd(30, 40, false));
+
+    Assert.assertEquals(expected, TimeRanges.union(a, b));
+    Assert.assertEquals(expected, TimeRanges.union(b, a));
+  }
+
+  @Test
+  public void matchesSequentialLookupForLargeGroups() {
+    Random random = new Random(/* seed= */ 3);
+    List<String> people = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 2000; i++) {
+      String person = "Person " + i;
+      people.add(person);
+      int start = random.nextInt(TimeRange.END_OF_DAY);
+      events.add(
+          new Event(
+              "Event " + i,
+              TimeRange.fromStartDuration(start, 1 + random.nextInt(30)),
+              Arrays.asList(person)));
+    }
+    AttendeeIndex index = new AttendeeIndex(events);
+
+    ParallelAttendeeCalendar parallelCalendar =
+        new ParallelAttendeeCalendar(index, ForkJoinPool.commonPool(), /* threshold= */ 16);
+
+    Assert.assertEquals(
+        index.getBusyTimeRanges(people), parallelCalendar.getBusyTimeRanges(people));
+    Assert.assertEquals(
+        index.getBusyTimeRanges(people.subList(0, 10)),
+        parallelCalendar.getBusyTimeRanges(people.subList(0, 10)));
+  }
+
+  @Test
+  public void looksUpGroupOfThresholdSizeDirectly() {
+    Thread caller = Thread.currentThread();
+    Set<Thread> lookupThreads = ConcurrentHashMap.newKeySet();
+    AttendeeCalendar calendar =
+        (attendees) -> {
+          lookupThreads.add(Thread.currentThread());
+          return Collections.emptyList();
+        };
+    ForkJoinPool pool = new ForkJoinPool(1);
+    ParallelAttendeeCalendar parallelCalendar =
+        new ParallelAttendeeCalendar(calendar, pool, /* threshold= */ 2);
+
+    try {
+      // Repeated names only count once.
+      parallelCalendar.getBusyTimeRanges(Arrays.asList("Person A", "Person B"));
+      parallelCalendar.getBusyTimeRanges(Arrays.asList("Person A", "Person B", "Person A"));
+      Assert.assertEquals(Collections.singleton(caller), lookupThreads);
+
+      parallelCalendar.getBusyTimeRanges(Arrays.asList("Person A", "Person B", "Person C"));
+      Assert.assertEquals(2, lookupThreads.size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.common.collect.ImmutableList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringEventTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final TimeRange STANDUP = TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false);
+
+  private static List<EpochTimeRange> occurrenceTimes(
+      RecurringEvent event, EpochTimeRange horizon) {
+    ImmutableList.Builder<EpochTimeRange> times = ImmutableList.builder();
+    event.occurrences(horizon).forEachRemaining((occurrence) -> times.add(occurrence.getWhen()));
+    return times.build();
+  }
+
+  @Test
+  public void weeklyWithinHorizon() {
+    RecurringEvent event =
+        new RecurringEvent.Builder(
+                "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.WEEKLY)
+            .from(3)
+            .build();
+
+    List<EpochTimeRange> actual =
+        occurrenceTimes(event, EpochTimeRange.ofDays(/* day= */ 5, /* dayCount= */ 14));
+    List<EpochTimeRange> expected =
+        Arrays.asList(EpochTimeRange.onDay(10, STANDUP), EpochTimeRange.onDay(17, STANDUP));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void skipsExceptionsAndStopsAtLastDay() {
+    RecurringEvent event =
+        new RecurringEvent.Builder(
+                "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY)
+            .from(1)
+            .until(4)
+            .except(2)
+            .build();
+
+    List<EpochTimeRange> actual =
+        occurrenceTimes(event, EpochTimeRange.ofDays(/* day= */ 0, /* dayCount= */ 365));
+    List<EpochTimeRange> expected =
+        Arrays.asList(
+            EpochTimeRange.onDay(1, STANDUP),
+            EpochTimeRange.onDay(3, STANDUP),
+            EpochTimeRange.onDay(4, STANDUP));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void skipsOccurrenceThatEndsBeforeHorizonStarts() {
+    RecurringEvent event =
+        new RecurringEvent.Builder(
+                "Standup", STANDUP, Arrays.asList(PERSON_A), RecurringEvent.Frequency.DAILY)
+            .build();
+
+    // The horizon starts at 10:00 on day 1000 and ends at 9:30 on day 1001.
+    long horizonStart = 1000 * EpochTimeRange.MINUTES_PER_DAY + TIME_1000AM;
+    EpochTimeRange horizon =
+        EpochTimeRange.fromStartDuration(horizonStart, EpochTimeRange.MINUTES_PER_DAY - 30);
+
+    Assert.assertEquals(
+        Arrays.asList(EpochTimeRange.onDay(1001, STANDUP)), occurrenceTimes(event, horizon));
+  }
+}
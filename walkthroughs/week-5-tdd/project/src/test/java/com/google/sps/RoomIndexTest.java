@@ -0,0 +1,43 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomIndexTest {
+  private static final Room SMALL = new Room("Small", 2);
+  private static final Room MEDIUM = new Room("Medium", 6);
+  private static final Room MEDIUM_TOO = new Room("Medium too", 6);
+  private static final Room LARGE = new Room("Large", 20);
+
+  @Test
+  public void findsRoomsBigEnoughSmallestFirst() {
+    RoomIndex index =
+        new RoomIndex(Arrays.asList(LARGE, MEDIUM, SMALL, MEDIUM_TOO), new EventStore());
+
+    Assert.assertEquals(Arrays.asList(SMALL, MEDIUM, MEDIUM_TOO, LARGE), index.getRoomsFor(0));
+    Assert.assertEquals(Arrays.asList(MEDIUM, MEDIUM_TOO, LARGE), index.getRoomsFor(3));
+    Assert.assertEquals(Arrays.asList(MEDIUM, MEDIUM_TOO, LARGE), index.getRoomsFor(6));
+    Assert.assertEquals(Arrays.asList(LARGE), index.getRoomsFor(20));
+    Assert.assertEquals(Collections.emptyList(), index.getRoomsFor(21));
+  }
+}
@@ -0,0 +1,113 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SchedulerMetricsTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private static final Collection<Event> EVENTS =
+      Arrays.asList(
+          new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_B)),
+          new Event(
+              "Event 2",
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              Arrays.asList(PERSON_A)),
+          new Event(
+              "Event 3",
+              TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+              Arrays.asList(PERSON_C)));
+
+  @Test
+  public void countsWhatQueriesDo() {
+    SchedulerMetrics metrics = new SchedulerMetrics();
+    FindMeetingQuery query = new FindMeetingQuery(metrics);
+
+    // Optional Person B is busy all day, so the query falls back to Person A.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    query.query(EVENTS, request);
+
+    Assert.assertEquals(1, metrics.getCount(SchedulerMetrics.Counter.QUERIES));
+    Assert.assertEquals(1, metrics.getCount(SchedulerMetrics.Counter.FALLBACKS_TO_MANDATORY));
+    Assert.assertEquals(6, metrics.getCount(SchedulerMetrics.Counter.EVENTS_SCANNED));
+    Assert.assertEquals(3, metrics.getCount(SchedulerMetrics.Counter.EVENTS_MATCHED));
+    Assert.assertEquals(2, metrics.getCount(SchedulerMetrics.Counter.FREE_TIME_RANGES_FOUND));
+    Assert.assertEquals(1, metrics.getCount(SchedulerMetrics.Phase.QUERY));
+    Assert.assertEquals(2, metrics.getCount(SchedulerMetrics.Phase.LOOKUP_BUSY_TIMES));
+    Assert.assertEquals(2, metrics.getCount(SchedulerMetrics.Phase.FIND_FREE_TIME));
+    Assert.assertTrue(
+        metrics.getPercentileNanos(SchedulerMetrics.Phase.QUERY, 100)
+            >= metrics.getMaxNanos(SchedulerMetrics.Phase.QUERY));
+  }
+
+  @Test
+  public void countsQueryForDurationsOnce() {
+    SchedulerMetrics metrics = new SchedulerMetrics();
+    FindMeetingQuery query = new FindMeetingQuery(metrics);
+
+    // Optional Person B is busy all day, so every duration falls back to Person A, whose busy
+    // times are only looked up the first time.
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+    query.queryForDurations(new AttendeeIndex(EVENTS), request, Arrays.asList(30L, 60L, 90L));
+
+    Assert.assertEquals(1, metrics.getCount(SchedulerMetrics.Counter.QUERIES));
+    Assert.assertEquals(1, metrics.getCount(SchedulerMetrics.Counter.FALLBACKS_TO_MANDATORY));
+    Assert.assertEquals(1, metrics.getCount(SchedulerMetrics.Phase.QUERY));
+    Assert.assertEquals(2, metrics.getCount(SchedulerMetrics.Phase.LOOKUP_BUSY_TIMES));
+    Assert.assertEquals(6, metrics.getCount(SchedulerMetrics.Phase.FIND_FREE_TIME));
+  }
+
+  @Test
+  public void percentilesRoundUpToPowersOfTwo() {
+    SchedulerMetrics metrics = new SchedulerMetrics();
+    for (int i = 0; i < 10; i++) {
+      metrics.recordPhase(SchedulerMetrics.Phase.MERGE, System.nanoTime() + 1_000_000_000L);
+    }
+
+    // Timings that end before they start count as zero.
+    Assert.assertEquals(0, metrics.getPercentileNanos(SchedulerMetrics.Phase.MERGE, 99));
+    Assert.assertEquals(0, metrics.getPercentileNanos(SchedulerMetrics.Phase.QUERY, 50));
+    Assert.assertEquals(10, metrics.getCount(SchedulerMetrics.Phase.MERGE));
+  }
+
+  @Test
+  public void disabledMetricsRecordNothing() {
+    FindMeetingQuery query = new FindMeetingQuery();
+    query.query(EVENTS, new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES));
+
+    SchedulerMetrics metrics = SchedulerMetrics.disabled();
+    Assert.assertFalse(metrics.isEnabled());
+    Assert.assertEquals(0, metrics.getCount(SchedulerMetrics.Counter.QUERIES));
+    Assert.assertEquals(0, metrics.getCount(SchedulerMetrics.Phase.QUERY));
+  }
+}
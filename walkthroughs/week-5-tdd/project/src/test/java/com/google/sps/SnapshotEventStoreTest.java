@@ -0,0 +1,138 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class SnapshotEventStoreTest {
+  // Some people that we can use in our tests.
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+
+  private static final Event EVENT_1 =
+      new Event(
+          "Event 1",
+          TimeRange.fromStartEnd(TIME_0800AM, TIME_0900AM, false),
+          Arrays.asList(PERSON_A));
+  private static final Event EVENT_2 =
+      new Event(
+          "Event 2",
+          TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+          Arrays.asList(PERSON_A, PERSON_B));
+
+  @Test
+  public void snapshotsDontSeeLaterChanges() {
+    SnapshotEventStore store = new SnapshotEventStore(Arrays.asList(EVENT_1));
+    AttendeeCalendar before = store.getSnapshot();
+
+    store.add(EVENT_2);
+    AttendeeCalendar after = store.getSnapshot();
+    store.remove(EVENT_1);
+
+    Assert.assertEquals(
+        Arrays.asList(EVENT_1.getWhen()), before.getBusyTimeRanges(Arrays.asList(PERSON_A)));
+    Assert.assertEquals(Collections.emptyList(), before.getBusyTimeRanges(Arrays.asList(PERSON_B)));
+    Assert.assertEquals(
+        Arrays.asList(EVENT_1.getWhen(), EVENT_2.getWhen()),
+        after.getBusyTimeRanges(Arrays.asList(PERSON_A)));
+    Assert.assertEquals(
+        Arrays.asList(EVENT_2.getWhen()), store.getBusyTimeRanges(Arrays.asList(PERSON_A)));
+    Assert.assertEquals(0, before.getVersion());
+    Assert.assertEquals(1, after.getVersion());
+    Assert.assertEquals(2, store.getVersion());
+  }
+
+  @Test
+  public void removingLastEventRemovesAttendee() {
+    SnapshotEventStore store = new SnapshotEventStore(Arrays.asList(EVENT_1, EVENT_2));
+    AttendeeIndex before = store.getIndex();
+
+    store.remove(EVENT_2);
+
+    Assert.assertEquals(Arrays.asList(PERSON_A, PERSON_B), before.getAttendees());
+    Assert.assertEquals(Arrays.asList(PERSON_A), store.getIndex().getAttendees());
+    Assert.assertEquals(Collections.emptyList(), store.getBusyTimeRanges(Arrays.asList(PERSON_B)));
+  }
+
+  @Test
+  public void removingUnknownEventChangesNothing() {
+    SnapshotEventStore store = new SnapshotEventStore();
+
+    Assert.assertFalse(store.remove(EVENT_1));
+    Assert.assertEquals(0, store.getVersion());
+  }
+
+  @Test
+  public void readersAlwaysSeeWholeVersions() throws InterruptedException {
+    // Each version adds one more one-minute event for both people, so a consistent snapshot of
+    // version v has exactly v busy minutes for each of them.
+    SnapshotEventStore store = new SnapshotEventStore();
+    int changeCount = 500;
+    AtomicReference<String> failure = new AtomicReference<>();
+
+    Thread writer =
+        new Thread(
+            () -> {
+              for (int minute = 0; minute < changeCount; minute++) {
+                store.add(
+                    new Event(
+                        "Event " + minute,
+                        TimeRange.fromStartDuration(minute * 2, 1),
+                        Arrays.asList(PERSON_A, PERSON_B)));
+              }
+            });
+    writer.start();
+
+    List<Thread> readers = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread reader =
+          new Thread(
+              () -> {
+                long version;
+                do {
+                  AttendeeCalendar snapshot = store.getSnapshot();
+                  version = snapshot.getVersion();
+                  int a = snapshot.getBusyTimeRanges(Arrays.asList(PERSON_A)).size();
+                  int b = snapshot.getBusyTimeRanges(Arrays.asList(PERSON_B)).size();
+                  if (a != version || b != version) {
+                    failure.set("version " + version + " had " + a + " and " + b + " events");
+                  }
+                } while (version < changeCount);
+              });
+      reader.start();
+      readers.add(reader);
+    }
+
+    writer.join();
+    for (Thread reader : readers) {
+      reader.join();
+    }
+    Assert.assertNull(failure.get());
+  }
+}
@@ -0,0 +1,104 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.sps.Event;
+import com.google.sps.Events;
+import com.google.sps.TimeRange;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventJsonReaderTest {
+  @Test
+  public void readsWhatGetEventsServletWrites() throws IOException {
+    String json = new Gson().toJson(Events.events);
+
+    List<Event> actual = new ArrayList<>();
+    EventJsonReader.readEvents(
+        new JsonReader(new StringReader(json)),
+        (when, attendees) -> actual.add(new Event("Event " + actual.size(), when, attendees)));
+
+    Assert.assertEquals(Events.events.length, actual.size());
+    for (int i = 0; i < actual.size(); i++) {
+      Assert.assertEquals(Events.events[i].getWhen(), actual.get(i).getWhen());
+      Assert.assertEquals(Events.events[i].getAttendees(), actual.get(i).getAttendees());
+    }
+  }
+
+  @Test
+  public void ignoresUnknownFields() throws IOException {
+    String json =
+        "[{\"title\": \"Event 1\", \"room\": {\"floor\": 2}, \"attendees\": [\"A\", \"B\"],"
+            + " \"when\": {\"start\": 60, \"duration\": 30}}]";
+
+    List<TimeRange> times = new ArrayList<>();
+    List<String> attendees = new ArrayList<>();
+    EventJsonReader.readEvents(
+        new JsonReader(new StringReader(json)),
+        (when, eventAttendees) -> {
+          times.add(when);
+          attendees.addAll(eventAttendees);
+        });
+
+    Assert.assertEquals(Arrays.asList(TimeRange.fromStartDuration(60, 30)), times);
+    Assert.assertEquals(Arrays.asList("A", "B"), attendees);
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void rejectsEventsWithoutATime() throws IOException {
+    EventJsonReader.readEvents(
+        new JsonReader(new StringReader("[{\"title\": \"Event 1\", \"attendees\": []}]")),
+        (when, attendees) -> {});
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void rejectsTimesThatArentNumbers() throws IOException {
+    EventJsonReader.readEvents(
+        new JsonReader(
+            new StringReader(
+                "[{\"attendees\": [], \"when\": {\"start\": \"noon\", \"duration\": 30}}]")),
+        (when, attendees) -> {});
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void rejectsNegativeDurations() throws IOException {
+    EventJsonReader.readEvents(
+        new JsonReader(
+            new StringReader(
+                "[{\"attendees\": [], \"when\": {\"start\": 60, \"duration\": -30}}]")),
+        (when, attendees) -> {});
+  }
+
+  @Test(expected = JsonParseException.class)
+  public void rejectsTimesPastTheEndOfTheDay() throws IOException {
+    EventJsonReader.readEvents(
+        new JsonReader(
+            new StringReader(
+                "[{\"attendees\": [], \"when\": {\"start\": 1430, \"duration\": 30}}]")),
+        (when, attendees) -> {});
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.TimeRange;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class TimeRangeCodecTest {
+  private static final List<TimeRange> TIME_RANGES =
+      Arrays.asList(
+          TimeRange.fromStartEnd(TimeRange.START_OF_DAY, 480, false),
+          TimeRange.fromStartEnd(510, 600, false),
+          TimeRange.fromStartEnd(900, TimeRange.END_OF_DAY, true));
+
+  @Test
+  public void packsGapsAndDurations() {
+    int[] expected = {0, 480, 30, 90, 300, 540};
+
+    Assert.assertArrayEquals(expected, TimeRangeCodec.pack(TIME_RANGES));
+    Assert.assertEquals(TIME_RANGES, TimeRangeCodec.unpack(expected));
+  }
+
+  @Test
+  public void varintsRoundTrip() throws IOException {
+    // Overlapping time ranges have negative gaps.
+    List<TimeRange> overlapping =
+        Arrays.asList(
+            TimeRange.fromStartEnd(600, 700, false), TimeRange.fromStartEnd(650, 1000, false));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    TimeRangeCodec.writeVarints(TIME_RANGES, out);
+    TimeRangeCodec.writeVarints(overlapping, out);
+    ByteArrayInputStream in = new ByteArrayInputStream(out.toByteArray());
+
+    Assert.assertEquals(TIME_RANGES, TimeRangeCodec.readVarints(in));
+    Assert.assertEquals(overlapping, TimeRangeCodec.readVarints(in));
+    Assert.assertEquals(-1, in.read());
+  }
+
+  @Test
+  public void negotiatesFirstKnownFormat() {
+    Assert.assertEquals(TimeRangeCodec.JSON, TimeRangeCodec.negotiate(null));
+    Assert.assertEquals(TimeRangeCodec.JSON, TimeRangeCodec.negotiate("*/*"));
+    Assert.assertEquals(
+        TimeRangeCodec.VARINT,
+        TimeRangeCodec.negotiate("text/html, application/x-varint-time-ranges;q=0.9, */*"));
+    Assert.assertEquals(
+        TimeRangeCodec.JSON,
+        TimeRangeCodec.negotiate("application/json, application/x-packed-time-ranges+json"));
+  }
+}